@@ -0,0 +1,120 @@
+package solvers;
+
+import com.google.common.base.Stopwatch;
+import model.MARSC;
+import org.junit.jupiter.api.Test;
+import toolkit.RandomProblemGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CPLEXTest {
+
+	@Test
+	void test() {
+		MARSC problem = RandomProblemGenerator.generate("SUPERADDITIVE", 2, 3, 1, 50);
+		assertNotNull(problem);
+		System.out.println(problem);
+
+		ANT ant = new ANT(problem.clone());
+		System.out.println(":: ANT");
+		Stopwatch stopwatch = Stopwatch.createStarted();
+		ant.solve();
+		stopwatch.stop();
+		System.out.printf("Solution score: %s\nTotal time: %s ms\n\n%s%n",
+		ant.solution.getScore(), stopwatch.elapsed(TimeUnit.MILLISECONDS), ant.solution.sort());
+
+		CPLEX cplex = new CPLEX(problem);
+		System.out.println(":: CPLEX");
+		cplex.solve();
+		assertNotNull(cplex.solution);
+		BranchAndBoundTest.assertFeasible(problem, cplex.solution);
+		System.out.printf("\n%s\n\n%s%n", cplex.getStats(), cplex.solution.sort());
+
+		assertEquals(cplex.solution.getScore(true), ant.solution.getScore(true));
+	}
+
+	@Test
+	void testLazySpatialConstraints() {
+		MARSC problem = RandomProblemGenerator.generate("SUPERADDITIVE", 2, 3, 1, 50);
+		assertNotNull(problem);
+
+		CPLEX eager = new CPLEX(problem.clone());
+		eager.solve();
+		assertNotNull(eager.solution);
+		BranchAndBoundTest.assertFeasible(problem, eager.solution);
+
+		CPLEX lazy = new CPLEX(problem.clone(), false, CPLEX.Formulation.COALITION, true);
+		System.out.println(":: CPLEX (lazy spatial constraints)");
+		lazy.solve();
+		assertNotNull(lazy.solution);
+		BranchAndBoundTest.assertFeasible(problem, lazy.solution);
+		System.out.printf("\n%s\n\n%s%n", lazy.getStats(), lazy.solution.sort());
+
+		assertEquals(eager.solution.getScore(true), lazy.solution.getScore(true));
+	}
+
+	@Test
+	void testWarmStart() {
+		MARSC problem = RandomProblemGenerator.generate("SUPERADDITIVE", 2, 3, 1, 50);
+		assertNotNull(problem);
+
+		CPLEX cplex = new CPLEX(problem.clone());
+		cplex.solve();
+		assertNotNull(cplex.solution);
+		BranchAndBoundTest.assertFeasible(problem, cplex.solution);
+
+		BNT bnt = new BNT(problem.clone());
+		bnt.solve();
+
+		CPLEX warmStarted = new CPLEX(problem.clone(), false, CPLEX.Formulation.COALITION, false, bnt.getSolution());
+		System.out.println(":: CPLEX (warm-started with BNT)");
+		warmStarted.solve();
+		assertNotNull(warmStarted.solution);
+		BranchAndBoundTest.assertFeasible(problem, warmStarted.solution);
+		System.out.printf("\n%s\n\n%s%n", warmStarted.getStats(), warmStarted.solution.sort());
+
+		assertEquals(cplex.solution.getScore(true), warmStarted.solution.getScore(true));
+	}
+
+	@Test
+	void testTimeBuckets() {
+		MARSC problem = RandomProblemGenerator.generate("SUPERADDITIVE", 2, 3, 1, 50);
+		assertNotNull(problem);
+
+		CPLEX cplex = new CPLEX(problem, false, CPLEX.Formulation.COALITION, false, null, 5);
+		System.out.println(":: CPLEX (time buckets)");
+		cplex.solve();
+		assertNotNull(cplex.solution);
+		BranchAndBoundTest.assertFeasible(problem, cplex.solution);
+		System.out.printf("\n%s\n\n%s%n", cplex.getStats(), cplex.solution.sort());
+	}
+
+	@Test
+	void testAgentFormulation() {
+		MARSC problem = RandomProblemGenerator.generate("SUPERADDITIVE", 6, 3, 1, 50);
+		assertNotNull(problem);
+
+		CPLEX cplex = new CPLEX(problem, false, CPLEX.Formulation.AGENT);
+		System.out.println(":: CPLEX (agent-indexed formulation)");
+		cplex.solve();
+		assertNotNull(cplex.solution);
+		BranchAndBoundTest.assertFeasible(problem, cplex.solution);
+		System.out.printf("\n%s\n\n%s%n", cplex.getStats(), cplex.solution.sort());
+	}
+
+	@Test
+	void testColumnGeneration() {
+		MARSC problem = RandomProblemGenerator.generate("SUPERADDITIVE", 6, 3, 1, 50);
+		assertNotNull(problem);
+
+		CPLEX cplex = new CPLEX(problem, false, CPLEX.Formulation.COLUMN_GENERATION);
+		System.out.println(":: CPLEX (column generation)");
+		cplex.solve();
+		assertNotNull(cplex.solution);
+		BranchAndBoundTest.assertFeasible(problem, cplex.solution);
+		System.out.printf("\n%s\n\n%s%n", cplex.getStats(), cplex.solution.sort());
+	}
+
+}
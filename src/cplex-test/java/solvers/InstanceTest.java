@@ -74,6 +74,7 @@ class InstanceTest {
 		System.out.println(":: CPLEX");
 		cplex.solve();
 		assertNotNull(cplex.solution);
+		BranchAndBoundTest.assertFeasible(problem, cplex.solution);
 		System.out.printf("\n%s\n\n%s%n", cplex.getStats(), cplex.solution.sort());
 	}
 
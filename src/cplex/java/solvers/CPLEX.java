@@ -0,0 +1,825 @@
+package solvers;
+
+import bip.Model;
+import com.google.common.base.Stopwatch;
+import ilog.concert.*;
+import ilog.cplex.IloCplex;
+import locations.Location;
+import model.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Reducing the MARSC to a Binary Integer Program (BIP) and solving it with CPLEX.
+ *
+ * The coalition-indexed and agent-indexed BIPs are built by {@link BIPSolver}
+ * and translated to CPLEX. Column generation needs the duals of the master
+ * problem, hence its BIP is built directly in CPLEX.
+ *
+ * @author lcpz
+ */
+public class CPLEX extends BIPSolver {
+
+    private boolean verbose;
+
+	/* Variables for calculating the anytime quality index. */
+	public float anytimeQualityIndex;
+	protected ArrayList<Long> anytimeSolutionTimes;
+	protected ArrayList<Float> anytimeSolutionScores;
+	protected long lastSolutionTime;
+
+	/**
+	 * Log new incumbents if they are at better than the old.
+	 */
+	static class LogCallback extends IloCplex.MIPInfoCallback {
+		CPLEX solver;
+		double lastIncumbent, timeStart, detTimeStart;
+
+		LogCallback(CPLEX solver, double lastIncumbent, double timeStart, double detTimeStart) {
+		    this.solver = solver;
+			this.lastIncumbent = lastIncumbent;
+			this.timeStart = timeStart;
+			this.detTimeStart = detTimeStart;
+		}
+
+		public void main() throws IloException {
+			if (hasIncumbent() && Math.abs(lastIncumbent) < Math.abs(getIncumbentObjValue())) {
+				lastIncumbent = Math.abs(getIncumbentObjValue());
+			    float newScore = getCurrentScore();
+				solver.updateScore((long) (getCplexTime() - timeStart), newScore);
+
+				if (solver.verbose)
+					System.out.println(String.format("Time: %.4f s~ ticks: %.4f~ incumbent solution score: %.4f",
+						getCplexTime() - timeStart, getDetTime() - detTimeStart, newScore)
+						.replace(",", ".").replace("~", ","));
+			}
+		}
+
+		public float getCurrentScore() throws IloException {
+			float currentScore = 0;
+
+			if (solver.columnVars != null) {
+				double[] values = getIncumbentValues(solver.columnVars.toArray(new IloNumVar[0]));
+				for (int j = 0; j < values.length; j++) // coalition allocation
+					if (values[j] > 0.5)
+						currentScore += solver.getScore(solver.columns.get(j)[0], solver.columns.get(j)[3]);
+			} else
+				currentScore = solver.getScore(getIncumbentValues(solver.modelVars));
+
+			return currentScore;
+		}
+
+	}
+
+	/**
+	 * Separate spatial constraints (2) lazily: when an integer solution assigns
+	 * agents to two consecutive tasks that they cannot both reach in time, add
+	 * the violated clique constraints.
+	 */
+	static class SpatialCallback extends IloCplex.LazyConstraintCallback {
+		CPLEX solver;
+
+		SpatialCallback(CPLEX solver) {
+			this.solver = solver;
+		}
+
+		/* The indexes (task, location, coalition, time) of the n-th coalition allocation variable. */
+		private int[] getIndexes(int n) {
+			return new int[] { solver.caTasks[n], solver.caLocations[n], solver.caCoalitions[n], solver.caTimes[n] };
+		}
+
+		public void main() throws IloException {
+			double[] values = getValues(solver.modelVars);
+
+			Map<Integer, List<Integer>> active = new HashMap<>(); // task -> selected variables
+			for (int n = 0; n < solver.caVarsNr; n++)
+				if (values[solver.caVars[n]] > 0.5)
+					active.computeIfAbsent(solver.caTasks[n], x -> new ArrayList<>()).add(n);
+
+			Set<List<Integer>> added = new HashSet<>();
+			int[] counts, counts2;
+
+			for (int[] pair : solver.taskPairs) {
+				Task v = solver.tasks[pair[1]];
+
+				for (int a : active.getOrDefault(pair[0], List.of())) {
+					int[] r = getIndexes(a);
+					counts = solver.getTypeCounts(r[2]);
+
+					for (int b : active.getOrDefault(pair[1], List.of())) {
+						int[] r2 = getIndexes(b);
+						counts2 = solver.getTypeCounts(r2[2]);
+
+						for (int c = 0; c < counts.length; c++)
+							if (counts[c] + counts2[c] > solver.agentTypes[c].size()
+									&& solver.isTravelConflict(solver.agentTypes[c], r[0], r[1], r[3], v, r2[1], r2[3])
+									&& added.add(List.of(c, r[0], r[1], r[3], r2[0], r2[1], r2[3])))
+								add(solver.lp.le(solver.toExpr(solver.getCliqueConstraint(c, r[0], r[1], r[3], v, r2[1], r2[3])),
+									solver.agentTypes[c].size()));
+					}
+				}
+			}
+		}
+
+	}
+
+	private synchronized void updateScore(long lastTime, float lastScore) {
+		lastSolutionTime = lastTime == 0 ? 1 : lastTime; // when the problem is too small or the computer is too fast
+		anytimeSolutionTimes.add(lastSolutionTime);
+		anytimeSolutionScores.add(lastScore);
+	}
+
+	private IloCplex lp; /* The Linear Program */
+
+	/* The CPLEX variables of the BIP, by model index. */
+	private IloNumVar[] modelVars;
+
+	/* Statistics */
+	private String status = "Unsolved", cplexStatus = "N/A";
+	private double value = Double.NaN;
+	private long solvingTime = -1;
+	private long coarseSolvingTime; // solving time of the coarse formulation, with time buckets
+
+	/*
+	 * Column generation. The master problem starts with the coalition
+	 * allocations found by EDF, and coalition allocations with negative reduced
+	 * cost are added to it. Coalitions only exist once generated, and are
+	 * identified by their index in columnCoalitions. Each column is a record
+	 * (task, location, coalition, time), and its variable is in columnVars.
+	 */
+	private List<int[]> columnCoalitions;
+	private Map<List<Integer>, Integer> columnCoalitionIndex;
+	private List<int[]> columns;
+	private List<IloNumVar> columnVars;
+	private Map<List<Integer>, Integer> columnIndex;
+
+	/*
+	 * Rows of the master problem: work done on each task, coalition allocations
+	 * at each task, location and time (linked to the location of the task), and
+	 * busy agents of each type at each time. The last two are created with their
+	 * first column.
+	 */
+	private IloObjective objective;
+	private IloRange[] workloadRows;
+	private IloRange[][][] allocationRows;
+	private IloRange[][] capacityRows;
+	private IloNumVar[][] locationVars;
+
+	/* The part of the workload of each task that is not done, at a cost higher than any solution. */
+	private IloNumVar[] slackVars;
+
+	private static final int MAX_PRICING_ROUNDS = 100;
+
+	public CPLEX(MARSC problem) {
+		super(problem);
+
+		anytimeSolutionTimes = new ArrayList<>();
+		anytimeSolutionTimes.add(0L);
+		anytimeSolutionScores = new ArrayList<>();
+		anytimeSolutionScores.add(0f);
+	}
+
+	public CPLEX(MARSC problem, boolean verbose) {
+		this(problem);
+		this.verbose = verbose;
+	}
+
+	public CPLEX(MARSC problem, boolean verbose, Formulation formulation) {
+		this(problem, verbose);
+		this.formulation = checkFormulation(formulation);
+	}
+
+	public CPLEX(MARSC problem, boolean verbose, Formulation formulation, boolean lazySpatialConstraints) {
+		this(problem, verbose, formulation);
+		this.lazySpatialConstraints = lazySpatialConstraints && this.formulation == Formulation.COALITION;
+	}
+
+	/**
+	 * @param warmStart A solution of (a clone of) the problem, used as MIP
+	 *                  start. Its tasks and agents are matched by identifier.
+	 */
+	public CPLEX(MARSC problem, boolean verbose, Formulation formulation, boolean lazySpatialConstraints, Solution warmStart) {
+		this(problem, verbose, formulation, lazySpatialConstraints);
+		this.warmStart = warmStart;
+	}
+
+	/**
+	 * @param timeBucket If greater than 1, the coalition-indexed formulation is
+	 *                   first solved with time buckets of this length, and then
+	 *                   at full resolution only around the buckets chosen. The
+	 *                   solution found might not be optimal.
+	 */
+	public CPLEX(MARSC problem, boolean verbose, Formulation formulation, boolean lazySpatialConstraints, Solution warmStart, int timeBucket) {
+		this(problem, verbose, formulation, lazySpatialConstraints, warmStart);
+
+		try {
+			if (timeBucket < 1)
+				throw new Exception("the time bucket length must be positive");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+		this.timeBucket = Math.max(1, timeBucket);
+	}
+
+	/**
+	 * Creates a BIP of the input problem in CPLEX.
+	 */
+	private void createFormulation() throws IloException {
+		if (formulation == Formulation.COLUMN_GENERATION)
+			createMasterFormulation();
+		else {
+			createModel();
+			translateModel();
+		}
+	}
+
+	/**
+	 * Translate the BIP to CPLEX, variables first, then rows and objective.
+	 */
+	private void translateModel() throws IloException {
+		lp = new IloCplex();
+
+		int n = model.getVariablesNr(), var, r, t;
+		double[] lb = new double[n], ub = new double[n], objectiveCoefs = new double[n];
+		IloNumVarType[] types = new IloNumVarType[n];
+
+		for (var = 0; var < n; var++) {
+			lb[var] = model.getLowerBound(var);
+			ub[var] = model.getUpperBound(var);
+			objectiveCoefs[var] = model.getObjectiveCoefficient(var);
+			types[var] = model.getType(var) == Model.Type.BINARY ? IloNumVarType.Bool
+				: model.getType(var) == Model.Type.INTEGER ? IloNumVarType.Int : IloNumVarType.Float;
+		}
+
+		modelVars = lp.numVarArray(n, lb, ub, types);
+
+		IloLinearNumExpr expr;
+		for (r = 0; r < model.getRowsNr(); r++) {
+			expr = lp.linearNumExpr();
+			for (t = model.getRowStart(r); t < model.getRowStart(r + 1); t++)
+				expr.addTerm(model.getRowCoefficient(t), modelVars[model.getRowVariable(t)]);
+
+			switch (model.getSense(r)) {
+				case LE:
+					lp.addLe(expr, model.getRhs(r));
+					break;
+				case GE:
+					lp.addGe(expr, model.getRhs(r));
+					break;
+				default:
+					lp.addEq(expr, model.getRhs(r));
+			}
+		}
+
+		/* Objective function */
+		lp.addMinimize(lp.scalProd(objectiveCoefs, modelVars));
+
+		endFormulationStage("translation");
+	}
+
+	private IloLinearNumExpr toExpr(Model.Row row) throws IloException {
+		IloLinearNumExpr expr = lp.linearNumExpr();
+		for (int n = 0; n < row.size(); n++)
+			expr.addTerm(row.getCoefficient(n), modelVars[row.getVariable(n)]);
+		return expr;
+	}
+
+	/**
+	 * Creates the restricted master problem of the column generation, with the
+	 * coalition allocations found by EDF.
+	 */
+	private void createMasterFormulation() {
+		try {
+			lp = new IloCplex();
+			objective = lp.addMinimize();
+
+			columnCoalitions = new ArrayList<>();
+			columnCoalitionIndex = new HashMap<>();
+			columns = new ArrayList<>();
+			columnVars = new ArrayList<>();
+			columnIndex = new HashMap<>();
+
+			workloadRows = new IloRange[tasks.length];
+			allocationRows = new IloRange[tasks.length][][];
+			capacityRows = new IloRange[agentTypes.length][problem.maximumProblemCompletionTime + 1];
+			locationVars = new IloNumVar[tasks.length][];
+			slackVars = new IloNumVar[tasks.length];
+
+			double penalty = 1;
+			for (Task v : tasks)
+				penalty += v.demand.profit * v.demand.timeWindow.hardLatestTime;
+
+			TimeWindow tw;
+			IloRange locationRow;
+
+			for (int h = 0; h < tasks.length; h++) { // task
+				tw = tasks[h].demand.timeWindow;
+				workloadRows[h] = lp.addRange(tasks[h].demand.workload, Double.MAX_VALUE);
+				slackVars[h] = lp.numVar(lp.column(objective, penalty).and(lp.column(workloadRows[h], tasks[h].demand.workload)), 0, 1);
+
+				/* Temporal constraints (1). */
+				locationRow = lp.addRange(-Double.MAX_VALUE, 1);
+				locationVars[h] = new IloNumVar[tasks[h].demand.possibleLocations.length];
+				allocationRows[h] = new IloRange[locationVars[h].length][tw.hardLatestTime - tw.earliestTime];
+				for (int i = 0; i < locationVars[h].length; i++) // location
+					locationVars[h][i] = lp.numVar(lp.column(locationRow, 1), 0, 1);
+			}
+
+			endFormulationStage("master problem");
+
+			/* Seed columns. */
+			EDF edf = new EDF(problem.copy());
+			edf.solve();
+
+			List<int[]> records = new ArrayList<>();
+			if (edf.getSolution() != null)
+				records.addAll(toRecords(edf.getSolution()));
+			if (warmStart != null)
+				records.addAll(toRecords(warmStart));
+
+			for (int[] r : records) {
+				int[] counts = Arrays.copyOfRange(r, 4, r.length);
+				for (int t = r[2]; t <= r[3]; t++)
+					if (isAllocable(r[0], r[1], counts, t))
+						addColumn(r[0], r[1], counts, t - tasks[r[0]].demand.timeWindow.earliestTime);
+			}
+			endFormulationStage("seed columns");
+		} catch (IloException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/* Spatial constraints (1), and ordering constraints. */
+	private boolean isAllocable(int h, int i, int[] counts, int t) {
+		if (i < 0 || t < getFirstTime(h) || t >= tasks[h].demand.timeWindow.hardLatestTime)
+			return false;
+
+		for (int c = 0; c < agentTypes.length; c++)
+			if (counts[c] > 0 && agentTypes[c].getTravelTimeTo(tasks[h].demand.possibleLocations[i]) >= t)
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Add coalition allocation (task <code>h</code>, location <code>i</code>,
+	 * coalition with <code>counts[c]</code> agents of type c, time
+	 * <code>k</code>) to the master problem, if not already there.
+	 */
+	private boolean addColumn(int h, int i, int[] counts, int k) throws IloException {
+		List<Integer> key = new ArrayList<>(counts.length);
+		for (int count : counts)
+			key.add(count);
+
+		Integer j = columnCoalitionIndex.get(key);
+		if (j == null) {
+			j = columnCoalitions.size();
+			columnCoalitions.add(counts.clone());
+			columnCoalitionIndex.put(key, j);
+		}
+
+		if (columnIndex.putIfAbsent(List.of(h, i, j, k), columns.size()) != null)
+			return false;
+
+		int t = tasks[h].demand.timeWindow.earliestTime + k;
+		Location location = tasks[h].demand.possibleLocations[i];
+
+		if (allocationRows[h][i][k] == null) // at most 1 CA per task, location and time
+			allocationRows[h][i][k] = lp.addLe(lp.prod(-1, locationVars[h][i]), 0);
+
+		IloColumn column = lp.column(objective, tasks[h].demand.profit * t)
+			.and(lp.column(workloadRows[h], getValue(tasks[h], location, getCoalition(counts))))
+			.and(lp.column(allocationRows[h][i][k], 1));
+
+		for (int c = 0; c < agentTypes.length; c++)
+			if (counts[c] > 0) {
+				if (capacityRows[c][t] == null) // agents work on at most one task at a time
+					capacityRows[c][t] = lp.addRange(-Double.MAX_VALUE, agentTypes[c].size());
+				column = column.and(lp.column(capacityRows[c][t], counts[c]));
+			}
+
+		columns.add(new int[] { h, i, j, k });
+		columnVars.add(lp.numVar(column, 0, 1));
+
+		return true;
+	}
+
+	/**
+	 * Solve the linear relaxation of the master problem and add columns until
+	 * none has negative reduced cost, then make the master problem integer.
+	 *
+	 * Branching only happens on the generated columns (price and branch), hence
+	 * the solution found might not be optimal.
+	 */
+	private void generateColumns() throws IloException {
+		for (int round = 0; round < MAX_PRICING_ROUNDS; round++)
+			if (!lp.solve() || priceColumns() == 0)
+				break;
+
+		endFormulationStage("pricing");
+
+		lp.add(lp.conversion(columnVars.toArray(new IloNumVar[0]), IloNumVarType.Bool));
+		for (IloNumVar[] vars : locationVars)
+			lp.add(lp.conversion(vars, IloNumVarType.Bool));
+
+		addColumnSpatialConstraints();
+		endFormulationStage("spatial constraints");
+	}
+
+	/**
+	 * Pricing subproblem: for each task, location and time, find the coalition
+	 * with the lowest reduced cost given the duals of the master problem.
+	 *
+	 * Each agent of type c used at time t costs the opposite of the dual of the
+	 * capacity row (c, t). If the characteristic function is size-only, the
+	 * best coalition of each size is made of the cheapest agents, and the
+	 * pricing is exact. Otherwise, agents are added greedily.
+	 *
+	 * @return The number of columns added.
+	 */
+	private int priceColumns() throws IloException {
+		double[] workloadDuals = lp.getDuals(workloadRows);
+		double[][] agentCosts = new double[agentTypes.length][capacityRows[0].length];
+		int added = 0, c, t;
+
+		for (c = 0; c < agentTypes.length; c++)
+			for (t = 0; t < capacityRows[c].length; t++)
+				if (capacityRows[c][t] != null)
+					agentCosts[c][t] = -lp.getDual(capacityRows[c][t]);
+
+		for (int h = 0; h < tasks.length; h++) { // task
+			TimeWindow tw = tasks[h].demand.timeWindow;
+			for (int i = 0; i < tasks[h].demand.possibleLocations.length; i++) { // location
+				Location location = tasks[h].demand.possibleLocations[i];
+
+				for (t = getFirstTime(h); t < tw.hardLatestTime; t++) { // time
+					int k = t - tw.earliestTime;
+
+					List<Integer> available = new ArrayList<>();
+					for (c = 0; c < agentTypes.length; c++)
+						if (agentTypes[c].getTravelTimeTo(location) < t)
+							available.add(c);
+
+					if (available.isEmpty())
+						continue;
+
+					double fixedCost = tasks[h].demand.profit * t;
+					if (allocationRows[h][i][k] != null)
+						fixedCost -= lp.getDual(allocationRows[h][i][k]);
+
+					int[] counts = sizeValues != null
+						? priceBySize(available, agentCosts, t, fixedCost, workloadDuals[h])
+						: priceGreedily(h, location, available, agentCosts, t, fixedCost, workloadDuals[h]);
+
+					if (counts != null && addColumn(h, i, counts, k))
+						added++;
+				}
+			}
+		}
+
+		return added;
+	}
+
+	private static final double EPSILON = 1e-6;
+
+	private int[] priceBySize(List<Integer> available, double[][] agentCosts, int t, double fixedCost, double workloadDual) {
+		// cheapest agents first, then the earliest to arrive
+		available.sort(Comparator.comparingDouble((Integer c) -> agentCosts[c][t]).thenComparingInt(c -> agentTypes[c].endTime));
+
+		double cost = fixedCost, reducedCost, bestReducedCost = -EPSILON;
+		int size = 0, bestSize = 0;
+
+		for (int c : available)
+			for (int n = 0; n < agentTypes[c].size(); n++) {
+				size++;
+				cost += agentCosts[c][t];
+				reducedCost = cost - workloadDual * sizeValues[size - 1];
+				if (reducedCost < bestReducedCost) {
+					bestReducedCost = reducedCost;
+					bestSize = size;
+				}
+			}
+
+		if (bestSize == 0)
+			return null;
+
+		int[] counts = new int[agentTypes.length];
+		for (int c : available) {
+			counts[c] = Math.min(agentTypes[c].size(), bestSize);
+			bestSize -= counts[c];
+			if (bestSize == 0)
+				break;
+		}
+
+		return counts;
+	}
+
+	private int[] priceGreedily(int h, Location location, List<Integer> available, double[][] agentCosts, int t,
+								double fixedCost, double workloadDual) {
+		int[] counts = new int[agentTypes.length];
+		double cost = fixedCost, reducedCost = Double.MAX_VALUE, candidateReducedCost;
+		int bestType;
+
+		do {
+			bestType = -1;
+
+			for (int c : available)
+				if (counts[c] < agentTypes[c].size()) {
+					counts[c]++;
+					candidateReducedCost = cost + agentCosts[c][t] - workloadDual * getValue(tasks[h], location, getCoalition(counts));
+					counts[c]--;
+					if (candidateReducedCost < reducedCost) {
+						reducedCost = candidateReducedCost;
+						bestType = c;
+					}
+				}
+
+			if (bestType > -1) {
+				counts[bestType]++;
+				cost += agentCosts[bestType][t];
+			}
+		} while (bestType > -1);
+
+		return reducedCost < -EPSILON ? counts : null;
+	}
+
+	/**
+	 * Spatial constraints (2), between the generated coalition allocations of
+	 * different times (the ones at the same time are in the capacity rows).
+	 */
+	private void addColumnSpatialConstraints() throws IloException {
+		Map<Integer, List<Integer>> taskColumns = new HashMap<>();
+		for (int n = 0; n < columns.size(); n++)
+			taskColumns.computeIfAbsent(columns.get(n)[0], x -> new ArrayList<>()).add(n);
+
+		for (int[] pair : getTaskPairs()) {
+			Task task = tasks[pair[0]], v = tasks[pair[1]];
+			int alpha = task.demand.timeWindow.earliestTime, alpha2 = v.demand.timeWindow.earliestTime;
+
+			for (int a : taskColumns.getOrDefault(task.id, List.of())) {
+				int[] r = columns.get(a);
+				Location location = task.demand.possibleLocations[r[1]];
+
+				for (int b : taskColumns.getOrDefault(v.id, List.of())) {
+					int[] r2 = columns.get(b);
+					List<AgentType> commonTypes = getCommonTypes(columnCoalitions.get(r[2]), columnCoalitions.get(r2[2]));
+
+					if (commonTypes.size() > 0) {
+						int lambda = 1 + alpha + r[3] + getMaxRho(commonTypes, location, v.demand.possibleLocations[r2[1]]);
+
+						if (alpha + r[3] < alpha2 + r2[3] && alpha2 + r2[3] <= lambda)
+							lp.addLe(lp.sum(columnVars.get(a), columnVars.get(b)), 1);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Solve the coalition-indexed formulation with time slots of
+	 * <code>timeBucket</code> time units, within the time limit. The time
+	 * taken is in <code>coarseSolvingTime</code>, and the stages of the
+	 * formulation are in the formulation stages.
+	 *
+	 * @return The coalition allocations found, as records, or null if none.
+	 */
+	private List<int[]> solveCoarseFormulation() throws IloException {
+		List<int[]> records = null;
+
+		setTimeSlots(timeBucket, null);
+		createFormulation();
+
+		Stopwatch coarseStopwatch = Stopwatch.createStarted();
+		try {
+			lp.setOut(null);
+			lp.setParam(IloCplex.Param.MIP.Display, 0);
+			lp.setParam(IloCplex.Param.TimeLimit, timeLimit / 1000d);
+			if (lazySpatialConstraints)
+				lp.use(new SpatialCallback(this));
+
+			if (lp.solve())
+				records = getCoalitionRecords(lp.getValues(modelVars));
+		} finally {
+			lp.end();
+			coarseSolvingTime = coarseStopwatch.elapsed(TimeUnit.MILLISECONDS);
+			stageStopwatch.reset().start();
+		}
+
+		return records;
+	}
+
+	@Override
+	public void solve() {
+		List<int[]> coarseRecords = null;
+
+		try {
+			stageStopwatch.reset().start();
+
+			if (formulation == Formulation.COALITION && timeBucket > 1) {
+				coarseRecords = solveCoarseFormulation();
+				setTimeSlots(timeBucket, coarseRecords); // the coarse time slots, if the coarse formulation has no solution
+				endFormulationStage("time slots");
+			}
+
+			createFormulation();
+			if (stopwatch != null)
+				formulationTime = stopwatch.elapsed(TimeUnit.MILLISECONDS) - coarseSolvingTime;
+		} catch (IloException | OutOfMemoryError e) {
+			e.printStackTrace();
+			return;
+		}
+
+
+		lp.setOut(null); // turn all logging off
+
+		try { /* Solve the linear program and show the solution found (if any) */
+			//lp.setParam(IloCplex.Param.Preprocessing.Presolve, false); // no pre-solve, because ANT does not have it
+			lp.setParam(IloCplex.Param.MIP.Display, 0); // turn logging off (but print version and parameters)
+			lp.setParam(IloCplex.Param.TimeLimit, Math.max(0, timeLimit - coarseSolvingTime) / 1000d); // what is left of the time limit
+
+			if (formulation == Formulation.COLUMN_GENERATION)
+				generateColumns();
+
+			if (warmStart != null || coarseRecords != null) {
+				if (warmStart != null)
+					addWarmStart(toRecords(warmStart));
+				if (coarseRecords != null)
+					addWarmStart(coarseRecords);
+				endFormulationStage("warm start");
+			}
+
+			// set the maximum number of nodes solved before the algorithm terminates without reaching optimality
+			//lp.setParam(IloCplex.Param.MIP.Limits.Nodes, 5000); // taken from MIPex4 example
+
+			double lastObjVal = (lp.getObjective().getSense() == IloObjectiveSense.Minimize) ? Double.MAX_VALUE : -Double.MAX_VALUE;
+			lp.use(new LogCallback(this, lastObjVal, lp.getCplexTime(), lp.getDetTime()));
+			if (lazySpatialConstraints)
+				lp.use(new SpatialCallback(this));
+
+			boolean solutionFound = lp.solve();
+			if (stopwatch != null)
+				solvingTime = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+
+			if (solutionFound) {
+				status = lp.getStatus().toString().toLowerCase();
+				cplexStatus = lp.getCplexStatus().toString().toLowerCase();
+				value = lp.getObjValue();
+
+				Set<Task> taskSet = new HashSet<>();
+				Collections.addAll(taskSet, tasks);
+
+				List<int[]> l;
+				if (formulation == Formulation.AGENT)
+					l = getAgentRecords(lp.getValues(modelVars));
+				else if (formulation == Formulation.COLUMN_GENERATION) {
+					l = getColumnRecords();
+					for (int h = 0; h < tasks.length; h++)
+						if (lp.getValue(slackVars[h]) > 1e-6) // not completed
+							taskSet.remove(tasks[h]);
+				} else
+					l = getCoalitionRecords(lp.getValues(modelVars));
+				CoalitionAllocation[] coalitionAllocations = expand(l).toArray(new CoalitionAllocation[0]);
+
+				solution = new Solution(taskSet, coalitionAllocations);
+			}
+		} catch (IloException | OutOfMemoryError e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * As {@link BIPSolver#exportModel(String)}. With column generation, the
+	 * master problem is exported by CPLEX, with the columns generated so far.
+	 */
+	@Override
+	public void exportModel(String path) throws IOException {
+		if (formulation != Formulation.COLUMN_GENERATION) {
+			super.exportModel(path);
+			return;
+		}
+
+		try {
+			if (lp == null)
+				createMasterFormulation();
+			lp.exportModel(path);
+		} catch (IloException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * The coalition allocations of the column generation, as records (task,
+	 * location, start time, end time, agents of each type).
+	 */
+	private List<int[]> getColumnRecords() throws IloException {
+		double[] values = lp.getValues(columnVars.toArray(new IloNumVar[0]));
+		Map<List<Integer>, int[]> m = new LinkedHashMap<>(); // task, location and coalition -> first and last time
+
+		for (int n = 0; n < columns.size(); n++)
+			if (values[n] > 0.5) {
+				int[] r = columns.get(n);
+				int t = tasks[r[0]].demand.timeWindow.earliestTime + r[3];
+				int[] times = m.computeIfAbsent(List.of(r[0], r[1], r[2]), x -> new int[] { t, t });
+				times[0] = Math.min(times[0], t);
+				times[1] = Math.max(times[1], t);
+			}
+
+		List<int[]> l = new ArrayList<>(m.size());
+		for (Map.Entry<List<Integer>, int[]> entry : m.entrySet())
+			l.add(getRecord(entry.getKey().get(0), entry.getKey().get(1), entry.getValue()[0], entry.getValue()[1],
+				columnCoalitions.get(entry.getKey().get(2))));
+
+		return l;
+	}
+
+	/**
+	 * Give the warm start solution to CPLEX as MIP start. The coalition
+	 * allocations that are not in the model are left out, and CPLEX tries to
+	 * repair the resulting solution if infeasible.
+	 */
+	private void addWarmStart(List<int[]> records) throws IloException {
+		if (formulation != Formulation.COLUMN_GENERATION) {
+			lp.addMIPStart(modelVars, getStartValues(records), IloCplex.MIPStartEffort.Repair);
+			return;
+		}
+
+		List<IloNumVar> vars = new ArrayList<>(columnVars);
+		Map<IloNumVar, Double> values = new HashMap<>();
+
+		for (int[] r : records) {
+			int h = r[0], i = r[1];
+			if (i < 0)
+				continue;
+
+			Integer j = columnCoalitionIndex.get(Arrays.stream(r, 4, r.length).boxed().collect(Collectors.toList()));
+			for (int t = r[2]; t <= r[3]; t++) {
+				Integer n = j == null ? null : columnIndex.get(List.of(h, i, j, t - tasks[h].demand.timeWindow.earliestTime));
+				if (n != null)
+					values.put(columnVars.get(n), 1.0);
+			}
+
+			values.put(locationVars[h][i], 1.0);
+		}
+
+		for (IloNumVar[] a : locationVars)
+			vars.addAll(Arrays.asList(a));
+
+		double[] x = new double[vars.size()];
+		for (int n = 0; n < x.length; n++)
+			x[n] = values.getOrDefault(vars.get(n), 0.0);
+
+		lp.addMIPStart(vars.toArray(new IloNumVar[0]), x, IloCplex.MIPStartEffort.Repair);
+	}
+
+	@Override
+	public float getCoarseSolvingTime() {
+		return coarseSolvingTime;
+	}
+
+	public String getStats() {
+		StringBuilder stages = new StringBuilder();
+		for (Map.Entry<String, Long> e : formulationStageTimes.entrySet())
+			stages.append(String.format("\n  %s: %s s", e.getKey(), e.getValue() / (float) 1000));
+
+		return String.format("Solution status: %s\nCPLEX status: %s\nSolution value: %d\nTime to formulate: %s s%s\nTime to solve the coarse formulation: %s s\nTime to solve: %s s\nTotal time: %s s",
+			status, cplexStatus, (int) Math.ceil(value), formulationTime / (float) 1000, stages, coarseSolvingTime / (float) 1000,
+			solvingTime / (float) 1000, (formulationTime + solvingTime) / (float) 1000);
+	}
+
+	@Override
+	public float getAnytimeQualityIndex() {
+		if (anytimeQualityIndex == 0) {
+			float optimalScore;
+			if (solution.getScore(false) == 0)
+				optimalScore = solution.getScore();
+			else
+				optimalScore = solution.getScore(false);
+
+			float t = lastSolutionTime == 0 ? 1 : lastSolutionTime;
+
+			/* CPLEX does use the logging callback if it immediately reaches an optimal solution,
+			   hence we put the final solution in our anytime arrays. */
+			if (anytimeSolutionTimes.size() == 1 && anytimeSolutionTimes.get(0) == 0) {
+				anytimeSolutionTimes.add((long) t);
+				anytimeSolutionScores.add(optimalScore);
+			}
+
+			// Trapezoidal rule
+			for (int i = 1; i < anytimeSolutionTimes.size(); i++)
+				anytimeQualityIndex += Math.abs(((anytimeSolutionTimes.get(i) - anytimeSolutionTimes.get(i - 1)) / t) *
+						((anytimeSolutionScores.get(i) + anytimeSolutionScores.get(i - 1)) / (2 * optimalScore)));
+		}
+
+		return anytimeQualityIndex;
+	}
+
+	@Override
+	public long getLastSolutionTime() {
+		return lastSolutionTime * 1000; // we want ms
+	}
+
+}
@@ -0,0 +1,51 @@
+package locations;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Travel times between random locations, in an Euclidean space and on the
+ * Earth's surface (around London, as in the LFB datasets).
+ *
+ * @author lcpz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LocationBenchmark {
+
+	private static final long SEED = 1;
+
+	private static final int LOCATIONS_NR = 1024; // a power of 2
+
+	private final Location[] points = new Location[LOCATIONS_NR], latLngs = new Location[LOCATIONS_NR];
+
+	private int i;
+
+	@Setup
+	public void setup() {
+		SplittableRandom rnd = new SplittableRandom(SEED);
+		for (int n = 0; n < LOCATIONS_NR; n++) {
+			points[n] = new LocationPoint(rnd.nextInt(100), rnd.nextInt(100));
+			latLngs[n] = new LocationLatLng(rnd.nextDouble(51.3, 51.7), rnd.nextDouble(-0.5, 0.3));
+		}
+	}
+
+	@Benchmark
+	public int point() {
+		i = (i + 1) & (LOCATIONS_NR - 1);
+		return points[i].getTravelTimeTo(points[(i + 1) & (LOCATIONS_NR - 1)], 1.5f);
+	}
+
+	@Benchmark
+	public int latLng() {
+		i = (i + 1) & (LOCATIONS_NR - 1);
+		return latLngs[i].getTravelTimeTo(latLngs[(i + 1) & (LOCATIONS_NR - 1)], 1.5f);
+	}
+
+}
@@ -0,0 +1,61 @@
+package model;
+
+import org.openjdk.jmh.annotations.*;
+import solvers.BNT;
+import toolkit.RandomProblemGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copying a random instance, and scoring a solution of it.
+ *
+ * @author lcpz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ModelBenchmark {
+
+	private static final long SEED = 1;
+
+	@Param({ "SUPERADDITIVE", "UNIFORM", "NDCS" })
+	public String type;
+
+	@Param({ "8" })
+	public int agents;
+
+	@Param({ "16", "128" })
+	public int tasks;
+
+	private MARSC problem;
+
+	private Solution solution;
+
+	@Setup
+	public void setup() {
+		problem = RandomProblemGenerator.generate(type, agents, tasks, 3, 50, SEED);
+
+		BNT bnt = new BNT(problem.clone());
+		bnt.solve();
+		solution = bnt.getSolution();
+	}
+
+	@Benchmark
+	public MARSC cloneProblem() {
+		return problem.clone();
+	}
+
+	@Benchmark
+	public MARSC copyProblem() {
+		return problem.copy();
+	}
+
+	@Benchmark
+	public float getScore() {
+		return solution.getScore(true);
+	}
+
+}
@@ -0,0 +1,97 @@
+package problems;
+
+import locations.Location;
+import model.Agent;
+import model.MARSC;
+import model.Task;
+import org.openjdk.jmh.annotations.*;
+import toolkit.RandomProblemGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The characteristic function of each problem class, on random coalitions of a
+ * random instance. Inputs repeat, hence {@link #getValue()} measures memoised
+ * coalition values as solvers see them, that is, mostly as lookups, whereas
+ * {@link #computeValue()} measures their computation, without memoisation.
+ *
+ * @author lcpz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ProblemBenchmark {
+
+	private static final long SEED = 1;
+
+	private static final int INPUTS_NR = 256; // a power of 2
+
+	@Param({ "SUPERADDITIVE", "LINEAR_PERTURBED", "UNIFORM", "NORMAL", "MODIFIED_UNIFORM", "MODIFIED_NORMAL",
+		"AGENT_BASED", "U_AGENT_BASED", "C_AGENT_BASED", "UC_AGENT_BASED", "NDCS", "U_NDCS", "C_NDCS", "UC_NDCS" })
+	public String type;
+
+	@Param({ "8" })
+	public int agents;
+
+	@Param({ "16" })
+	public int tasks;
+
+	private MARSC problem;
+
+	private final Task[] inputTasks = new Task[INPUTS_NR];
+	private final Location[] inputLocations = new Location[INPUTS_NR];
+	private final Agent[][] inputCoalitions = new Agent[INPUTS_NR][];
+
+	private int i;
+
+	@Setup
+	public void setup() {
+		problem = RandomProblemGenerator.generate(type, agents, tasks, 3, 50, SEED);
+
+		SplittableRandom rnd = new SplittableRandom(SEED);
+		for (int n = 0; n < INPUTS_NR; n++) {
+			inputTasks[n] = problem.getTasks()[rnd.nextInt(tasks)];
+			inputLocations[n] = inputTasks[n].demand.possibleLocations[rnd.nextInt(inputTasks[n].demand.possibleLocations.length)];
+
+			List<Agent> coalition = new ArrayList<>();
+			for (Agent a : problem.getAgents())
+				if (rnd.nextBoolean())
+					coalition.add(a);
+			if (coalition.isEmpty())
+				coalition.add(problem.getAgents()[rnd.nextInt(agents)]);
+			inputCoalitions[n] = coalition.toArray(new Agent[0]);
+		}
+	}
+
+	@Benchmark
+	public float getValue() {
+		i = (i + 1) & (INPUTS_NR - 1);
+		return problem.getValue(inputTasks[i], inputLocations[i], inputCoalitions[i]);
+	}
+
+	@Benchmark
+	public float computeValue() {
+		i = (i + 1) & (INPUTS_NR - 1);
+		Task v = inputTasks[i];
+		Agent[] coalition = inputCoalitions[i];
+
+		if (problem instanceof AgentBasedProblem) {
+			AgentBasedProblem p = (AgentBasedProblem) problem;
+			return p.computeValue(v, inputLocations[i], coalition, p.getKey(v, coalition));
+		}
+
+		if (problem instanceof NDCSProblem) {
+			NDCSProblem p = (NDCSProblem) problem;
+			return p.computeValue(v, inputLocations[i], coalition, p.getKey(v, coalition));
+		}
+
+		return problem.getValue(v, inputLocations[i], coalition); // not memoised
+	}
+
+}
@@ -0,0 +1,47 @@
+package solvers;
+
+import bip.Model;
+import model.MARSC;
+import org.openjdk.jmh.annotations.*;
+import toolkit.RandomProblemGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creating the BIP of a random instance. Only the solver-independent model is
+ * created, as shared by CPLEX and the branch and bound.
+ *
+ * @author lcpz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FormulationBenchmark {
+
+	private static final long SEED = 1;
+
+	@Param({ "COALITION", "AGENT" })
+	public String formulation;
+
+	@Param({ "4" })
+	public int agents;
+
+	@Param({ "8" })
+	public int tasks;
+
+	private MARSC problem;
+
+	@Setup
+	public void setup() {
+		problem = RandomProblemGenerator.generate("SUPERADDITIVE", agents, tasks, 3, 50, SEED);
+	}
+
+	@Benchmark
+	public Model createFormulation() {
+		return new BranchAndBound(problem, BIPSolver.Formulation.valueOf(formulation), 1).createModel();
+	}
+
+}
@@ -0,0 +1,78 @@
+package solvers;
+
+import model.Agent;
+import model.MARSC;
+import model.Solution;
+import model.Task;
+import org.openjdk.jmh.annotations.*;
+import toolkit.RandomProblemGenerator;
+
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The inner steps of BNT and ANT, on the tasks of a random instance in turn.
+ *
+ * @author lcpz
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SolverBenchmark {
+
+	private static final long SEED = 1;
+
+	@Param({ "SUPERADDITIVE", "NDCS" })
+	public String type;
+
+	@Param({ "8" })
+	public int agents;
+
+	@Param({ "16" })
+	public int tasks;
+
+	private BNT bnt;
+
+	private ANT ant;
+
+	/* Task indexes, in order of identifier, hence satisfying the task ordering. */
+	private int[] permutation;
+
+	private int i;
+
+	@Setup
+	public void setup() {
+		MARSC problem = RandomProblemGenerator.generate(type, agents, tasks, 3, 50, SEED);
+		bnt = new BNT(problem);
+		ant = new ANT(problem.clone());
+
+		permutation = new int[tasks];
+		for (int n = 0; n < tasks; n++)
+			permutation[n] = n;
+	}
+
+	private Task nextTask() {
+		i = (i + 1) % tasks;
+		return bnt.tasks[i];
+	}
+
+	@Benchmark
+	public TreeSet<Agent> getAssignable() {
+		Task v = nextTask();
+		return bnt.getAssignable(v, v.demand.possibleLocations[0], bnt.agents);
+	}
+
+	@Benchmark
+	public Solution getSingletonSolution() {
+		return bnt.getSingletonSolution(nextTask(), bnt.agents);
+	}
+
+	@Benchmark
+	public boolean satisfiesOrder() {
+		return ant.satisfiesOrder(permutation);
+	}
+
+}
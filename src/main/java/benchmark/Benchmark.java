@@ -3,25 +3,27 @@ package benchmark;
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.google.common.base.Stopwatch;
-import com.javadocmd.simplelatlng.LatLng;
-import locations.Location;
-import locations.LocationLatLng;
-import model.Agent;
 import model.MARSC;
 import model.Solution;
-import model.Task;
 import org.apache.commons.math3.stat.descriptive.rank.Median;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import solvers.*;
+import toolkit.InstanceArchive;
+import toolkit.InstanceJson;
 import toolkit.RandomProblemGenerator;
 
 import java.io.File;
-import java.io.PrintWriter;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 
 /**
  * LFB benchmark developed for the MARSC paper.
@@ -33,48 +35,342 @@ public class Benchmark {
 	protected Setup setup;
 	protected Median median = new Median();
 
-	// algorithms - metrics (plus solving time) - replicates
+	/*
+	 * Algorithms - metrics (plus solving time) - replicates. Replicates run in
+	 * parallel write to different slots.
+	 */
 	protected double[][][] batchResults;
 
 	private int testNr = 1;
 
-	private static final Stopwatch stopwatch = Stopwatch.createUnstarted();
+	/* The test configuration being run, and the seeds of its instances. */
+	private String currentType;
+	private float currentRatio;
+	private long[] currentSeeds;
 
-	protected void run(String type, float ratio, int batchIdx, MARSC problem) {
-		if (problem == null)
-			problem = setup.generate(type, agents, ratio);
+	/* Where the results are written, if requested. */
+	protected ResultSink results;
+
+	/* The completed cells of an interrupted session, if resuming. */
+	protected ResultStore store;
+
+	/* The instances generated in previous sessions, if reusing them. */
+	protected InstanceArchive archive;
+
+	/*
+	 * Held for writing while an exclusive algorithm is solving, and for reading
+	 * while any other is, so that exclusive algorithms run alone.
+	 */
+	private final ReadWriteLock exclusiveLock = new ReentrantReadWriteLock(true);
+
+	/* Solve the replicate batchIdx with each algorithm, skipping the completed ones. */
+	protected void run(int batchIdx, MARSC problem, int testNr) {
+		run(batchIdx, prepare(currentType, currentRatio, batchIdx, problem), testNr);
+	}
+
+	/**
+	 * Solve the replicate batchIdx with each algorithm, skipping the completed
+	 * ones.
+	 *
+	 * @param copies The copies of the replicate solved by each algorithm.
+	 */
+	protected void run(int batchIdx, MARSC[][] copies, int testNr) {
+		for (int i = 0; i < algorithms.size(); i++) {
+			String algorithm = algorithms.get(i);
+
+			if (restoreResults(algorithm, i, batchIdx, testNr))
+				continue;
+
+			MARSC problem = copies[i][0];
 
-		int i = 0;
-		for (String algorithm : algorithms)
 			switch (algorithm) {
 				case "ANT": // Anytime and exact Node Traversal
-					getAndPrintResults(new ANT(problem.clone(), timeoutMs, maxPermutations, maxConsecutiveInvestigated, verbose), i++, batchIdx);
+					getAndPrintResults(algorithm, new ANT(problem, timeoutMs, maxPermutations, maxConsecutiveInvestigated, verbose), i, batchIdx, testNr);
 					break;
 				case "BNT": // Bounded Node Traversal
-					getAndPrintResults(new BNT(problem.clone()), i++, batchIdx);
+					getAndPrintResults(algorithm, new BNT(problem), i, batchIdx, testNr);
 					break;
 				case "CTS": // Cluster-based Task Scheduling
-					getAndPrintResults(new CTS(problem.clone()), i++, batchIdx);
+					getAndPrintResults(algorithm, new CTS(problem), i, batchIdx, testNr);
+					break;
+				case "CTS_PORTFOLIO": // CTS with several task orderings, run in parallel
+					getAndPrintResults(algorithm, new CTSPortfolio(problem), i, batchIdx, testNr);
 					break;
 				case "EDF":
-					getAndPrintResults(new EDF(problem.clone()), i++, batchIdx);
+					getAndPrintResults(algorithm, new EDF(problem), i, batchIdx, testNr);
 					break;
 				case "CPLEX":
-					getAndPrintResults(new CPLEX(problem.clone(), verbose), i++, batchIdx);
+					BIPSolver cplex = getCPLEX(problem, null);
+					if (cplex == null)
+						break;
+					getAndPrintResults(algorithm, cplex, i, batchIdx, testNr);
+					exportModel(cplex, testNr);
+					break;
+				case "BNT_CPLEX": // CPLEX, starting from BNT's solution
+					MARSC cplexProblem = copies[i][1];
+					Solver bntCplex = getAndPrintResults(algorithm, new BNT(problem), warmStart -> getCPLEX(cplexProblem, warmStart), i, batchIdx, testNr);
+					if (bntCplex != null)
+						exportModel((BIPSolver) bntCplex, testNr);
+					break;
+				case "BRANCH_AND_BOUND": // the BIP solved without CPLEX
+					BranchAndBound bb = new BranchAndBound(problem, formulation, Runtime.getRuntime().availableProcessors());
+					getAndPrintResults(algorithm, bb, i, batchIdx, testNr);
+					exportModel(bb, testNr);
 					break;
 				default:
 					System.err.format("%s is not a valid algorithm identifier", algorithm);
 					break;
 			}
+		}
+	}
+
+	/**
+	 * The seed of an instance, derived from the seed of the session, so that
+	 * each cell can be reproduced. It does not depend on the problem class,
+	 * hence the classes of a replicate only differ in their coalition values.
+	 */
+	protected long getInstanceSeed(float ratio, int replicate) {
+		long h = seed;
+		h = 31 * h + Float.floatToIntBits(ratio);
+		h = 31 * h + replicate;
+		return new SplittableRandom(h).nextLong();
+	}
+
+	/**
+	 * Generate a replicate of a test configuration. The replicate only depends on
+	 * its seed, hence it is read from the instance archive, if any, when already
+	 * stored.
+	 */
+	protected MARSC generate(String type, float ratio, int replicate, long seed) {
+		MARSC problem;
+		String key = String.format(Locale.ROOT, "%s,%s,%d,%d", type, ratio, replicate, seed);
+
+		if (archive != null)
+			try {
+				problem = archive.get(key);
+				if (problem != null && problem.getAgents().length == agents)
+					return problem;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+
+		if (randomProblems)
+			problem = RandomProblemGenerator.generate(type, agents, (int) Math.ceil(agents * ratio), locationsPerTask, gridWorldDim, seed);
+		else
+			problem = setup.generate(type, agents, ratio, replicate, seed); // from the same records and seed for every class
+
+		if (archive != null)
+			try {
+				archive.put(key, problem);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+
+		return problem;
+	}
+
+	/**
+	 * The copies of a replicate solved by each algorithm: one per algorithm (two
+	 * for BNT_CPLEX), and none for the algorithms whose results are restored.
+	 *
+	 * @param problem The replicate, or null to generate it if needed.
+	 */
+	protected MARSC[][] prepare(String type, float ratio, int replicate, MARSC problem) {
+		MARSC[][] copies = new MARSC[algorithms.size()][];
+
+		for (int i = 0; i < copies.length; i++) {
+			if (store != null && store.get(type, ratio, replicate, algorithms.get(i)) != null)
+				continue;
+
+			if (problem == null)
+				problem = generate(type, ratio, replicate, getInstanceSeed(ratio, replicate));
+
+			copies[i] = new MARSC[algorithms.get(i).equals("BNT_CPLEX") ? 2 : 1];
+			for (int k = 0; k < copies[i].length; k++)
+				copies[i][k] = problem.clone();
+		}
+
+		return copies;
+	}
+
+	/**
+	 * Copy the results of <code>algorithm</code> on the replicate batchIdx from the
+	 * store, if completed in an interrupted session.
+	 *
+	 * @return Whether the results were restored.
+	 */
+	protected boolean restoreResults(String algorithm, int i, int batchIdx, int testNr) {
+		double[] values = store == null ? null : store.get(currentType, currentRatio, batchIdx, algorithm);
+		if (values == null || values.length != batchResults[i].length)
+			return false;
+
+		for (int n = 0; n < values.length; n++)
+			batchResults[i][n][batchIdx] = values[n];
+
+		System.out.format("[%5d] %s [restored]\n", testNr, algorithm);
+
+		if (results != null)
+			try {
+				results.writeRecord(currentType, currentRatio, batchIdx, algorithm, testNr, getMetrics(algorithm, i, batchIdx));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+
+		return true;
+	}
+
+	/**
+	 * Solve the replicates of each test configuration, <code>concurrency</code>
+	 * at a time.
+	 *
+	 * Generator threads prepare the replicates, and the copies solved by each
+	 * algorithm, ahead of the solvers, so that solvers do not wait for them. At
+	 * most <code>lookahead</code> replicates are prepared and not yet being
+	 * solved. Since they compete for the processors, replicates are not prepared
+	 * while an exclusive algorithm is solving.
+	 */
+	protected void runAll() {
+		BlockingQueue<Future<MARSC[][]>> prepared = new LinkedBlockingQueue<>();
+		Semaphore permits = new Semaphore(Math.max(1, lookahead));
+		ExecutorService generators = Executors.newFixedThreadPool(Math.max(1, generatorThreads));
+
+		Thread producer = new Thread(() -> {
+			try {
+				for (String type : problemClasses)
+					for (float ratio : ratios)
+						for (int i = 0; i < replicates; i++) {
+							int replicate = i;
+							permits.acquire();
+							prepared.put(generators.submit(() -> {
+								Lock lock = exclusiveLock.readLock();
+								lock.lock();
+								try {
+									return prepare(type, ratio, replicate, null);
+								} finally {
+									lock.unlock();
+								}
+							}));
+						}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, "replicate-producer");
+		producer.setDaemon(true);
+		producer.start();
+
+		ExecutorService solvers = concurrency > 1 ? Executors.newFixedThreadPool(concurrency) : null;
+
+		try {
+			for (String type : problemClasses)
+				for (float ratio : ratios) {
+					currentType = type;
+					currentRatio = ratio;
+					currentSeeds = new long[replicates];
+					for (int i = 0; i < replicates; i++)
+						currentSeeds[i] = getInstanceSeed(ratio, i);
+
+					List<Future<?>> futures = new ArrayList<>(replicates);
+					for (int i = 0; i < replicates; i++) {
+						MARSC[][] copies = prepared.take().get();
+						int batchIdx = i, nr = testNr++;
+						Runnable solve = () -> {
+							permits.release();
+							run(batchIdx, copies, nr);
+						};
+
+						if (solvers == null)
+							solve.run();
+						else
+							futures.add(solvers.submit(solve));
+					}
+
+					for (Future<?> future : futures)
+						future.get();
+
+					if (archive != null)
+						archive.flush();
+
+					reset(type, ratio);
+					System.out.println();
+				}
+		} catch (InterruptedException | ExecutionException | IOException e) {
+			e.printStackTrace();
+		} finally {
+			producer.interrupt();
+			generators.shutdownNow();
+			if (solvers != null)
+				solvers.shutdown();
+		}
+	}
 
-		testNr++;
+	/**
+	 * CPLEX is only built with the <code>cplex</code> profile, hence it is
+	 * created reflectively.
+	 *
+	 * @return The CPLEX solver of <code>problem</code>, or null if not available.
+	 */
+	protected BIPSolver getCPLEX(MARSC problem, Solution warmStart) {
+		try {
+			return (BIPSolver) Class.forName("solvers.CPLEX")
+				.getConstructor(MARSC.class, boolean.class, BIPSolver.Formulation.class, boolean.class, Solution.class, int.class)
+				.newInstance(problem, verbose, formulation, lazyConstraints, warmStart, timeBucket);
+		} catch (ClassNotFoundException | LinkageError e) {
+			System.err.println("CPLEX is not available, build with the cplex profile");
+		} catch (ReflectiveOperationException e) {
+			e.printStackTrace();
+		}
+		return null;
 	}
 
-	protected void getAndPrintResults(Solver solver, int i, int batchIdx) {
-		stopwatch.reset();
-		stopwatch.start();
-		solver.solve(stopwatch);
-		stopwatch.stop();
+	/* Write the BIP solved, if requested. */
+	protected void exportModel(BIPSolver solver, int testNr) {
+		if (modelPath == null)
+			return;
+
+		try {
+			solver.exportModel(String.format(modelPath, testNr));
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	protected void getAndPrintResults(String algorithm, Solver solver, int i, int batchIdx, int testNr) {
+		getAndPrintResults(algorithm, null, warmStart -> solver, i, batchIdx, testNr);
+	}
+
+	/**
+	 * Solve with <code>heuristic</code> (if not null), and then with the solver
+	 * given by <code>chained</code> from its solution, as one run: the time of
+	 * the heuristic is part of the solving and total execution times.
+	 *
+	 * @return The chained solver, or null if not available.
+	 */
+	protected Solver getAndPrintResults(String algorithm, Solver heuristic, Function<Solution, Solver> chained, int i, int batchIdx, int testNr) {
+		Stopwatch stopwatch = Stopwatch.createUnstarted(); // one per run, since replicates can run in parallel
+		Stopwatch heuristicStopwatch = Stopwatch.createUnstarted();
+		Lock lock = exclusiveAlgorithms.contains(algorithm) ? exclusiveLock.writeLock() : exclusiveLock.readLock();
+		Solver solver;
+
+		lock.lock();
+		try {
+			if (heuristic != null) {
+				heuristicStopwatch.start();
+				heuristic.solve(heuristicStopwatch);
+				heuristicStopwatch.stop();
+			}
+
+			solver = chained.apply(heuristic != null ? heuristic.getSolution() : null);
+			if (solver == null)
+				return null;
+
+			stopwatch.start();
+			solver.solve(stopwatch);
+			stopwatch.stop();
+		} finally {
+			lock.unlock();
+		}
+
+		long heuristicTime = heuristicStopwatch.elapsed(TimeUnit.MILLISECONDS);
 
 		StringBuilder s = new StringBuilder(String.format("[%5d] %s [", testNr, solver.getClass().getSimpleName()));
 
@@ -97,32 +393,84 @@ public class Benchmark {
 			s.append(String.format("visited nodes (%%): %s, ", batchResults[i][3][batchIdx]));
 		}
 
-		if (solver instanceof CPLEX) {
-			batchResults[i][4][batchIdx] = ((CPLEX) solver).getLastSolutionTime();
-			batchResults[i][5][batchIdx] = ((CPLEX) solver).getFormulationTime();
-			batchResults[i][6][batchIdx] = (float) stopwatch.elapsed(TimeUnit.MILLISECONDS);
+		if (algorithm.contains("CPLEX")) {
+			BIPSolver cplex = (BIPSolver) solver;
+			batchResults[i][4][batchIdx] = heuristicTime + cplex.getLastSolutionTime();
+			batchResults[i][5][batchIdx] = cplex.getFormulationTime();
+			batchResults[i][6][batchIdx] = (float) (heuristicTime + stopwatch.elapsed(TimeUnit.MILLISECONDS));
 			if (batchResults[i][6][batchIdx] == 0) batchResults[i][6][batchIdx] = 1;
+			if (heuristic != null)
+				s.append(String.format("%s time (ms): %s, ", heuristic.getClass().getSimpleName(), heuristicTime));
 			s.append(String.format("solving time (ms): %s, ", batchResults[i][4][batchIdx]));
-			s.append(String.format("formulation time (ms): %s, ", batchResults[i][5][batchIdx]));
+			s.append(String.format("formulation time (ms): %s %s, ", batchResults[i][5][batchIdx], cplex.getFormulationStageTimes()));
+			if (timeBucket > 1)
+				s.append(String.format("coarse solving time (ms): %s, ", cplex.getCoarseSolvingTime()));
 			s.append(String.format("total execution time (ms): %s]", batchResults[i][6][batchIdx]));
 		} else {
 			batchResults[i][4][batchIdx] = (float) stopwatch.elapsed(TimeUnit.MILLISECONDS);
 			if (batchResults[i][4][batchIdx] == 0) batchResults[i][6][batchIdx] = 1;
-			if (solver instanceof BNT || solver.getClass().equals(CTS.class)) {
+			if (solver instanceof BNT || solver.getClass().equals(CTS.class) || solver instanceof CTSPortfolio) {
 				s.append(String.format("solving time (ms): %s, ", batchResults[i][4][batchIdx]));
 				if (solver instanceof BNT && !solver.getClass().equals(ANT.class))
 					batchResults[i][5][batchIdx] = ((BNT) solver).getMedianApproximationScoreRatio();
 				else if (solver.getClass().equals(CTS.class))
 					batchResults[i][5][batchIdx] = ((CTS) solver).getMedianApproximationScoreRatio();
+				else if (solver instanceof CTSPortfolio)
+					batchResults[i][5][batchIdx] = ((CTSPortfolio) solver).getMedianApproximationScoreRatio();
 				s.append(String.format("median approximation score: %s]", batchResults[i][5][batchIdx]));
 			} else
 				s.append(String.format("solving time (ms): %s]", batchResults[i][4][batchIdx]));
 		}
 
 		System.out.println(s);
+
+		try {
+			if (results != null)
+				results.writeRecord(currentType, currentRatio, batchIdx, algorithm, testNr, getMetrics(algorithm, i, batchIdx));
+
+			if (store != null) {
+				double[] values = new double[batchResults[i].length];
+				for (int n = 0; n < values.length; n++)
+					values[n] = batchResults[i][n][batchIdx];
+				store.put(currentType, currentRatio, batchIdx, algorithm, currentSeeds[batchIdx], values);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		return solver;
+	}
+
+	/**
+	 * The indexes in batchResults of the metrics of <code>algorithm</code>, in the
+	 * order of {@link ResultSink#METRICS} (-1 if not measured).
+	 */
+	protected static int[] getMetricSlots(String algorithm) {
+		if (algorithm.contains("CPLEX"))
+			return new int[] { 0, 1, 3, 4, 5, 6, -1 };
+		if (algorithm.contains("BNT") || algorithm.contains("EDF") || algorithm.contains("CTS"))
+			return new int[] { 0, 1, 3, 4, -1, -1, 5 };
+		return new int[] { 0, 1, 3, 4, -1, -1, -1 };
+	}
+
+	protected double[] getMetrics(String algorithm, int i, int batchIdx) {
+		int[] slots = getMetricSlots(algorithm);
+		double[] values = new double[slots.length];
+		for (int n = 0; n < slots.length; n++)
+			values[n] = slots[n] < 0 ? Double.NaN : batchResults[i][slots[n]][batchIdx];
+		return values;
+	}
+
+	public String getCIMedian(double[] values) {
+		double[] ci = getCIMedianBounds(values);
+		return String.format("%.4f +- [%.4f %.4f]", ci[0], ci[2] - ci[0], ci[0] - ci[1]);
 	}
 
-	public String getCIMedian(double[] values) { // 95% Confidence Interval for median
+	/**
+	 * @return The median of <code>values</code>, and the lower and upper bounds of
+	 *         its 95% confidence interval.
+	 */
+	public double[] getCIMedianBounds(double[] values) {
 		Arrays.sort(values);
 
 		//double v = 1.96d * (std.evaluate(values) * Math.sqrt(values.length));
@@ -135,9 +483,7 @@ public class Benchmark {
 		if (k >= values.length)
 			k = values.length - 1;
 
-		double m = median.evaluate(values);
-
-		return String.format("%.4f +- [%.4f %.4f]", m, values[k] - m, m - values[j]);
+		return new double[] { median.evaluate(values), values[j], values[k] };
 	}
 
 	protected void reset(String type, float ratio) {
@@ -164,88 +510,26 @@ public class Benchmark {
 
 			System.out.print(s);
 
+			if (results != null)
+				try {
+					int[] slots = getMetricSlots(algorithm);
+					for (int n = 0; n < slots.length; n++)
+						if (slots[n] >= 0)
+							results.writeAggregate(type, ratio, algorithm, ResultSink.METRICS[n], getCIMedianBounds(batchResults[i][slots[n]]), replicates);
+					results.flush();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+
 			batchResults[i++] = new double[7][replicates];
 		}
 
-		if (!randomProblems)
-			setup.currIdx = 1;
-
 		System.out.println();
 	}
 
 	protected static void createJson(MARSC problem, float ratio, int replicate) {
-		JSONObject j = new JSONObject();
-
-		Task[] tasks = problem.getTasks();
-		JSONArray profit = new JSONArray(tasks.length);
-		JSONArray workload = new JSONArray(tasks.length);
-		JSONArray possibleNodeLocations = new JSONArray(tasks.length);
-		JSONArray earliestTime = new JSONArray(tasks.length);
-		JSONArray softLatestTime = new JSONArray(tasks.length);
-		JSONArray hardLatestTime = new JSONArray(tasks.length);
-		for (Task v : tasks) {
-			profit.put(1); // homogeneous profits
-            workload.put(v.demand.workload);
-			JSONArray possibleLocations = new JSONArray(v.demand.possibleLocations.length);
-			for (Location l : v.demand.possibleLocations) {
-			    if (l instanceof LocationLatLng) {
-					LatLng latLng = ((LocationLatLng) l).location;
-					JSONObject objLocation = new JSONObject();
-					objLocation.put("lat", latLng.getLatitude());
-					objLocation.put("lon", latLng.getLongitude());
-					possibleLocations.put(objLocation);
-				}
-			}
-			possibleNodeLocations.put(possibleLocations);
-			earliestTime.put(v.demand.timeWindow.earliestTime);
-			softLatestTime.put(v.demand.timeWindow.softLatestTime);
-			hardLatestTime.put(v.demand.timeWindow.hardLatestTime);
-		}
-		j.put("profit", profit);
-
-		if (problem.getTaskOrdering() != null) {
-			JSONArray order = new JSONArray(problem.getTaskOrdering().size());
-			for (Map.Entry<Task, Task> entry : problem.getTaskOrdering().entrySet()) {
-				JSONObject p = new JSONObject();
-				p.put("preceded", entry.getKey().id);
-				p.put("precedence", entry.getValue().id);
-				order.put(p);
-			}
-			j.put("order", order);
-		} else
-			j.put("order", new JSONArray());
-
-		j.put("workload", workload);
-
-		j.put("possible_node_locations", possibleNodeLocations);
-
-		j.put("earliest_time", earliestTime);
-		j.put("soft_latest_time", softLatestTime);
-		j.put("hard_latest_time", hardLatestTime);
-
-		Agent[] agents = problem.getAgents();
-		JSONArray agentInitialLocation = new JSONArray(agents.length);
-		JSONArray agentSpeed = new JSONArray(agents.length);
-
-		for (Agent a : agents) {
-			if (a.location instanceof LocationLatLng) {
-			    LatLng latLng = ((LocationLatLng) a.location).location;
-			    JSONObject objLocation = new JSONObject();
-			    objLocation.put("lat", latLng.getLatitude());
-				objLocation.put("lon", latLng.getLongitude());
-				agentInitialLocation.put(objLocation);
-			}
-			agentSpeed.put(a.speed);
-		}
-
-		j.put("agent_initial_location", agentInitialLocation);
-		j.put("agent_speed", agentSpeed);
-		j.put("u", 0); // Superadditive coalition values
-
 		try {
-			PrintWriter out = new PrintWriter(String.format("marsc_%.2f_%d.json", ratio, replicate).replace(",", "_"));
-			out.println(j);
-			out.close();
+			InstanceJson.write(problem, Paths.get(String.format("marsc_%.2f_%d.json", ratio, replicate).replace(",", "_")));
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -257,6 +541,9 @@ public class Benchmark {
 	@Parameter(names = { "--station-dataset-path", "-s" }, description = "Path to a London Fire Brigade dataset containing fire stations")
 	private String stationDatasetPath;
 
+	@Parameter(names = { "--dataset-cache", "-D" }, description = "Directory where the records used from the datasets are cached in binary form, keyed by the hash of the datasets, so that later sessions do not parse them again")
+	private String datasetCacheDir;
+
 	@Parameter(names = { "--problem-types", "-p" }, variableArity = true, description = "The types of problem to test with. Possible entries: " +
 		"SUPERADDITIVE, " +
 		"LINEAR_PERTURBED, " +
@@ -295,7 +582,7 @@ public class Benchmark {
 		11f, 12f, 13f, 14f, 15f, 16f, 17f, 18f, 19f, 20f
 	);
 
-	@Parameter(names = { "--algorithms", "-a" }, variableArity = true, description = "Algorithms to test. Possible entries: EDF, BNT, CTS, ANT, CPLEX")
+	@Parameter(names = { "--algorithms", "-a" }, variableArity = true, description = "Algorithms to test. Possible entries: EDF, BNT, CTS, CTS_PORTFOLIO, ANT, CPLEX, BNT_CPLEX (CPLEX warm-started with BNT's solution), BRANCH_AND_BOUND (CPLEX's BIP, solved in Java)")
 	private List<String> algorithms = Arrays.asList("EDF", "BNT", "CTS", "ANT");
 
 	@Parameter(names = { "--random", "-x" }, description = "Generate random problems, instead of using datasets")
@@ -316,9 +603,50 @@ public class Benchmark {
 	@Parameter(names = { "--max-consecutive-permutations", "-c" }, description = "ANT's maximum number of consecutive permutations investigated without improving the incumbent solution (i.e., convergence criterion). Set 0 to disable it")
 	private long maxConsecutiveInvestigated = 1000000; // 1 million
 
+	@Parameter(names = { "--formulation", "-f" }, description = "BIP formulation of CPLEX and BRANCH_AND_BOUND. Possible entries: COALITION, AGENT (polynomial, only for problems whose coalition values depend on coalition size only), COLUMN_GENERATION (coalition allocations priced on demand, only used by CPLEX)")
+	private BIPSolver.Formulation formulation = BIPSolver.Formulation.COALITION;
+
+	@Parameter(names = { "--lazy-constraints", "-z" }, description = "Add CPLEX's spatial constraints only when violated (only used by the COALITION formulation)")
+	private boolean lazyConstraints = false;
+
+	@Parameter(names = { "--time-bucket", "-b" }, description = "Length of CPLEX's time buckets. If greater than 1, a coarse formulation is solved first, and then refined around the buckets chosen (only used by the COALITION formulation)")
+	private int timeBucket = 1;
+
+	@Parameter(names = { "--export-model", "-e" }, description = "Write the BIP of CPLEX and BRANCH_AND_BOUND to this file, where %d is the test number. MPS format if the file extension is .mps, LP format otherwise")
+	private String modelPath = null;
+
 	@Parameter(names = { "--verbose", "-y" }, description = "Be verbose (only used by ANT and CPLEX)")
 	private boolean verbose = false;
 
+	@Parameter(names = { "--results-path", "-u" }, description = "Write the results of each replicate and algorithm to this CSV file")
+	private String resultsPath;
+
+	@Parameter(names = { "--aggregates-path", "-v" }, description = "Write the medians of each test configuration and algorithm, with their 95% confidence intervals, to this CSV file")
+	private String aggregatesPath;
+
+	@Parameter(names = { "--seed", "-d" }, description = "Seed of the session, from which the seed of each instance is derived. Random if not set")
+	private Long seedParameter;
+
+	private long seed;
+
+	@Parameter(names = { "--result-store", "-j" }, description = "Record each completed algorithm run in this file, and skip the runs already recorded, to resume an interrupted session. The seed of the session is stored too")
+	private String storePath;
+
+	@Parameter(names = { "--instance-archive", "-I" }, description = "Store the generated instances in this binary file, and read the instances already stored instead of generating them again. The archive is tied to the datasets it was generated from")
+	private String archivePath;
+
+	@Parameter(names = { "--concurrency", "-k" }, description = "How many replicates are solved in parallel")
+	private int concurrency = 1;
+
+	@Parameter(names = { "--generator-threads", "-G" }, description = "How many threads generate the replicates, and the copies solved by each algorithm, while the replicates before them are solved")
+	private int generatorThreads = 1;
+
+	@Parameter(names = { "--lookahead", "-L" }, description = "How many replicates are generated ahead of the ones being solved")
+	private int lookahead = 2;
+
+	@Parameter(names = { "--exclusive-algorithms", "-o" }, variableArity = true, description = "Algorithms that run alone when replicates are solved in parallel, so that their timings are not affected by the other replicates")
+	private List<String> exclusiveAlgorithms = Arrays.asList("ANT", "CPLEX", "BNT_CPLEX", "BRANCH_AND_BOUND");
+
     @Parameter(names = { "--help", "-h" }, description = "Print this text", help = true)
     private boolean help = false;
 
@@ -364,48 +692,76 @@ public class Benchmark {
 
 		benchmark.batchResults = new double[benchmark.algorithms.size()][7][benchmark.replicates];
 
+		benchmark.seed = benchmark.seedParameter != null ? benchmark.seedParameter : ThreadLocalRandom.current().nextLong();
+		if (benchmark.storePath != null)
+			try {
+				benchmark.store = new ResultStore(benchmark.storePath, benchmark.seedParameter, benchmark.seed);
+				benchmark.seed = benchmark.store.getSeed();
+				System.out.printf("[Benchmark] result store: %s (%d completed runs)\n", benchmark.storePath, benchmark.store.size());
+			} catch (IOException e) {
+				e.printStackTrace();
+				return;
+			}
+
+		if (benchmark.archivePath != null)
+			try {
+				benchmark.archive = new InstanceArchive(Paths.get(benchmark.archivePath));
+				System.out.printf("[Benchmark] instance archive: %s (%d instances)\n", benchmark.archivePath, benchmark.archive.keys().size());
+			} catch (IOException e) {
+				e.printStackTrace();
+				return;
+			}
+
 		System.out.printf("[Benchmark] fixed number of agents: %d\n", benchmark.agents);
 		System.out.printf("[Benchmark] node-to-agent ratios: %s\n", benchmark.ratios);
 		System.out.printf("[Benchmark] algorithms: %s\n", benchmark.algorithms);
 		System.out.printf("[Benchmark] replicates: %d\n", benchmark.replicates);
+		if (benchmark.concurrency > 1)
+			System.out.printf("[Benchmark] replicates in parallel: %d (exclusive algorithms: %s)\n", benchmark.concurrency, benchmark.exclusiveAlgorithms);
 		System.out.printf("[Benchmark] problem classes: %s\n", benchmark.problemClasses);
+		System.out.printf("[Benchmark] seed: %d\n", benchmark.seed);
 
 		System.out.println("[Benchmark] session started\n");
 
-		int i;
+		if (!benchmark.randomProblems)
+			benchmark.setup = new Setup(benchmark.nodeDatasetPath, benchmark.stationDatasetPath, benchmark.datasetCacheDir);
 
 		if (benchmark.generateOnly) {
+			int firstIdx = 0; // each instance uses the records following the ones of the previous instance
 			for (float ratio : benchmark.ratios)
-				for (i = 0; i < benchmark.replicates; i++) {
-					createJson(benchmark.setup.generate("SUPERADDITIVE", benchmark.agents, ratio), ratio, i); // type is not important, we pick the first
+				for (int i = 0; i < benchmark.replicates; i++) {
+					// type is not important, we pick the first
+					createJson(benchmark.setup.generateAt(firstIdx, "SUPERADDITIVE", benchmark.agents, ratio, benchmark.getInstanceSeed(ratio, i)), ratio, i);
+					firstIdx = (firstIdx + (int) Math.ceil(benchmark.agents * ratio)) % benchmark.setup.recordNr;
 					System.out.printf("Problem %.2f-%d created", ratio, i);
 				}
+
+			if (benchmark.archive != null)
+				try {
+					benchmark.archive.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
 		} else {
-			if (benchmark.randomProblems) {
-				MARSC problem;
-				for (String type : benchmark.problemClasses)
-					for (float ratio : benchmark.ratios) {
-						for (i = 0; i < benchmark.replicates; i++) {
-							problem = RandomProblemGenerator.generate(type,
-									benchmark.agents,
-									(int) Math.ceil(benchmark.agents * ratio),
-									benchmark.locationsPerTask,
-									benchmark.gridWorldDim);
-							benchmark.run(type, ratio, i, problem);
-						}
-						benchmark.reset(type, ratio);
-						System.out.println();
-					}
-			} else {
-				benchmark.setup = new Setup(benchmark.nodeDatasetPath, benchmark.stationDatasetPath);
-
-				for (String type : benchmark.problemClasses)
-					for (float ratio : benchmark.ratios) {
-						for (i = 0; i < benchmark.replicates; i++)
-							benchmark.run(type, ratio, i, null);
-						benchmark.reset(type, ratio);
-						System.out.println();
-					}
+			if (benchmark.resultsPath != null || benchmark.aggregatesPath != null)
+				try {
+					benchmark.results = new ResultSink(benchmark.resultsPath, benchmark.aggregatesPath);
+				} catch (IOException e) {
+					e.printStackTrace();
+					return;
+				}
+
+			benchmark.runAll();
+
+			try {
+				if (benchmark.results != null)
+					benchmark.results.close();
+				if (benchmark.store != null)
+					benchmark.store.close();
+				if (benchmark.archive != null)
+					benchmark.archive.close();
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
 
 			System.out.println("[Benchmark] session terminated");
@@ -0,0 +1,89 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Benchmark results in CSV format, with a header: one record per problem
+ * class, node-to-agent ratio, replicate and algorithm, and the medians of each
+ * test configuration in a separate file.
+ *
+ * Metrics not measured by an algorithm are empty.
+ *
+ * @author lcpz
+ */
+public class ResultSink implements Closeable {
+
+	public static final String[] METRICS = {
+		"score",
+		"median_singleton_score",
+		"visited_nodes_pct",
+		"solving_time_ms",
+		"formulation_time_ms",
+		"total_time_ms",
+		"median_approximation_score"
+	};
+
+	private final Writer records, aggregates;
+
+	/**
+	 * @param recordsPath    Path of the records, or null.
+	 * @param aggregatesPath Path of the medians, or null.
+	 */
+	public ResultSink(String recordsPath, String aggregatesPath) throws IOException {
+		records = recordsPath == null ? null : new BufferedWriter(new FileWriter(recordsPath));
+		aggregates = aggregatesPath == null ? null : new BufferedWriter(new FileWriter(aggregatesPath));
+
+		if (records != null)
+			records.write(String.format("class,ratio,replicate,algorithm,test,%s\n", String.join(",", METRICS)));
+
+		if (aggregates != null)
+			aggregates.write("class,ratio,algorithm,metric,median,ci_lower,ci_upper,replicates\n");
+	}
+
+	/**
+	 * @param values The metrics, in the order of {@link #METRICS} (NaN if not
+	 *               measured).
+	 */
+	public synchronized void writeRecord(String type, float ratio, int replicate, String algorithm, int testNr, double[] values) throws IOException {
+		if (records == null)
+			return;
+
+		StringBuilder s = new StringBuilder(String.format(Locale.ROOT, "%s,%s,%d,%s,%d", type, ratio, replicate, algorithm, testNr));
+		for (double value : values) {
+			s.append(',');
+			if (!Double.isNaN(value))
+				s.append(value);
+		}
+		records.write(s.append('\n').toString());
+	}
+
+	/**
+	 * @param ci The median and the bounds of its 95% confidence interval.
+	 */
+	public synchronized void writeAggregate(String type, float ratio, String algorithm, String metric, double[] ci, int replicates) throws IOException {
+		if (aggregates != null)
+			aggregates.write(String.format(Locale.ROOT, "%s,%s,%s,%s,%s,%s,%s,%d\n", type, ratio, algorithm, metric, ci[0], ci[1], ci[2], replicates));
+	}
+
+	/* Write the results buffered, e.g., at the end of a test configuration. */
+	public synchronized void flush() throws IOException {
+		if (records != null)
+			records.flush();
+		if (aggregates != null)
+			aggregates.flush();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (records != null)
+			records.close();
+		if (aggregates != null)
+			aggregates.close();
+	}
+
+}
@@ -0,0 +1,145 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An append-only store of the completed benchmark cells, i.e., the results of
+ * an algorithm on a replicate of a problem class and node-to-agent ratio, so
+ * that an interrupted session can be resumed.
+ *
+ * The first line holds the seed of the session, and each following line a
+ * cell: class, ratio, replicate, algorithm, instance seed and results. A cell
+ * is written as soon as it is completed, hence at most the cells being run are
+ * lost when the session is interrupted.
+ *
+ * @author lcpz
+ */
+public class ResultStore implements Closeable {
+
+	private static final String SEED_PREFIX = "seed,";
+
+	private final long seed;
+
+	private final Map<String, double[]> cells = new HashMap<>();
+
+	private final Writer out;
+
+	/**
+	 * Open the store at <code>path</code>, creating it if it does not exist.
+	 *
+	 * @param seed The seed of the session, or null to use the stored one (or
+	 *             <code>defaultSeed</code>, if the store is new).
+	 * @throws IOException If the store cannot be read or written, or if it was
+	 *                     created with a different seed.
+	 */
+	public ResultStore(String path, Long seed, long defaultSeed) throws IOException {
+		File file = new File(path);
+		Long storedSeed = null;
+
+		if (file.isFile() && file.length() > 0) {
+			/*
+			 * The last line is incomplete if the session was interrupted while writing
+			 * it, and it might even look complete (e.g., a value cut after its decimal
+			 * point), hence it is removed.
+			 */
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				byte[] prefix = new byte[(int) Math.min(raf.length(), SEED_PREFIX.length())];
+				raf.readFully(prefix);
+				if (!SEED_PREFIX.startsWith(new String(prefix, StandardCharsets.UTF_8)))
+					throw new IOException(String.format("%s is not a result store", path));
+
+				long end = raf.length();
+				for (; end > 0; end--) {
+					raf.seek(end - 1);
+					if (raf.read() == '\n')
+						break;
+				}
+				raf.setLength(end);
+			}
+
+			List<String> lines = Files.readAllLines(file.toPath());
+
+			if (!lines.isEmpty()) { // empty if not even the seed was written
+				storedSeed = Long.parseLong(lines.get(0).substring(SEED_PREFIX.length()));
+				for (int n = 1; n < lines.size(); n++)
+					read(lines.get(n));
+			}
+		}
+
+		if (storedSeed != null && seed != null && !storedSeed.equals(seed))
+			throw new IOException(String.format("%s was created with seed %d, not %d", path, storedSeed, seed));
+
+		this.seed = storedSeed != null ? storedSeed : seed != null ? seed : defaultSeed;
+
+		out = new BufferedWriter(new FileWriter(file, true));
+		if (storedSeed == null) {
+			out.write(SEED_PREFIX + this.seed + "\n");
+			out.flush();
+		}
+	}
+
+	private static String getKey(String type, float ratio, int replicate, String algorithm) {
+		return String.format(Locale.ROOT, "%s,%s,%d,%s", type, ratio, replicate, algorithm);
+	}
+
+	private void read(String line) {
+		String[] s = line.split(",");
+		if (s.length < 6)
+			return;
+
+		try {
+			double[] values = new double[s.length - 5];
+			for (int n = 0; n < values.length; n++)
+				values[n] = Double.parseDouble(s[n + 5]);
+			Long.parseLong(s[4]); // instance seed
+			cells.put(getKey(s[0], Float.parseFloat(s[1]), Integer.parseInt(s[2]), s[3]), values);
+		} catch (NumberFormatException e) {
+			System.err.format("Skipping the invalid result store line %s\n", line);
+		}
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int size() {
+		return cells.size();
+	}
+
+	/**
+	 * @return The results of a completed cell, or null if it is not completed.
+	 */
+	public synchronized double[] get(String type, float ratio, int replicate, String algorithm) {
+		return cells.get(getKey(type, ratio, replicate, algorithm));
+	}
+
+	/* Record a completed cell, and write it immediately. */
+	public synchronized void put(String type, float ratio, int replicate, String algorithm, long instanceSeed, double[] values) throws IOException {
+		StringBuilder s = new StringBuilder(getKey(type, ratio, replicate, algorithm)).append(',').append(instanceSeed);
+		for (double value : values)
+			s.append(',').append(value);
+
+		out.write(s.append('\n').toString());
+		out.flush();
+
+		cells.put(getKey(type, ratio, replicate, algorithm), values.clone());
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		out.close();
+	}
+
+}
@@ -1,17 +1,25 @@
 package benchmark;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
 import java.util.concurrent.ThreadLocalRandom;
-
-import org.apache.commons.math3.distribution.UniformIntegerDistribution;
+import java.util.stream.IntStream;
 
 import locations.Location;
 import locations.LocationLatLng;
@@ -29,105 +37,347 @@ import problems.Problem;
  */
 public class Setup {
 
-	private String charSplit;
+	/* The columns of the node dataset used to generate the instances. */
+	private static final String LATITUDE = "Latitude", LONGITUDE = "Longitude",
+		STATION_NAME = "DeployedFromStation_Name", STATION_CODE = "DeployedFromStation_Code",
+		ATTENDANCE_TIME = "AttendanceTimeSeconds";
 
-	/* The first line contains the headers. */
-	public final String[][] nodeRecords;
+	private final char separator;
 
-	public final Map<String, ArrayList<String>> stationsMap;
+	private static final int CACHE_MAGIC = 0x4c464221; // "LFB!"
 
-	public final Map<String, Integer> nodeLabel;
+	private static final short CACHE_VERSION = 1;
 
-	protected int currIdx; // current record index
+	private static final int CACHE_HEADER_LENGTH = 3 * Integer.BYTES + Short.BYTES;
+
+	/* Number of node records, i.e., of the rows of the node columns. */
+	public final int recordNr;
 
-	private ThreadLocalRandom rnd = ThreadLocalRandom.current();
+	/*
+	 * The node records, one column per attribute. stations holds the index of
+	 * the deploying station, or -1 if the station dataset does not contain it.
+	 */
+	protected double[] latitudes, longitudes;
+	protected int[] attendanceTimes, stations;
+
+	/* Station locations, and their indexes by name or code. */
+	protected double[] stationLatitudes, stationLongitudes;
+	protected final Map<String, Integer> stationIdx = new HashMap<>();
 
-	private UniformIntegerDistribution unifW = new UniformIntegerDistribution(10, 300);
+	protected int currIdx; // current record index
 
-	public Setup(Path taskDatasetPath, Path stationLocationDatasetPath, String charSplit) {
-		this.charSplit = charSplit;
+	/**
+	 * @param cacheDir Directory of the dataset caches, or null to always read
+	 *                 the datasets.
+	 */
+	public Setup(Path taskDatasetPath, Path stationLocationDatasetPath, char separator, Path cacheDir) {
+		this.separator = separator;
 		String label = String.format("[%s]", this.getClass().getSimpleName());
-		System.out.print(String.format("%s extracting task records... ", label));
-		nodeRecords = extract(taskDatasetPath);
-
-		// label -> row_index map to avoid hard-coding
-		nodeLabel = new HashMap<>();
-		for (int i = 0; i < nodeRecords[0].length; i++)
-			nodeLabel.put(nodeRecords[0][i], i);
-
-		//currIdx = ThreadLocalRandom.current().nextInt(1, nodeRecords.length); // random initial record
-		currIdx = 1;
-		System.out.print(String.format("done.\n%s extracting station records... ", label));
-		stationsMap = extractMap(stationLocationDatasetPath);
-		System.out.println(String.format("done.\n%s initialisation completed.", label));
+
+		Path cachePath = null;
+		if (cacheDir != null)
+			try {
+				cachePath = cacheDir.resolve(String.format("lfb-%s.bin", hash(taskDatasetPath, stationLocationDatasetPath)));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+
+		if (cachePath != null && readCache(cachePath))
+			System.out.print(String.format("%s records read from %s", label, cachePath));
+		else {
+			System.out.print(String.format("%s extracting station records... ", label));
+			extractStations(stationLocationDatasetPath);
+			System.out.print(String.format("done.\n%s extracting task records... ", label));
+			extract(taskDatasetPath);
+			System.out.print("done.");
+
+			if (cachePath != null) {
+				writeCache(cachePath);
+				System.out.print(String.format("\n%s records cached in %s", label, cachePath));
+			}
+		}
+		recordNr = latitudes.length;
+
+		//currIdx = ThreadLocalRandom.current().nextInt(0, recordNr); // random initial record
+		currIdx = 0;
+		System.out.println(String.format("\n%s initialisation completed (%d records).", label, recordNr));
+	}
+
+	public Setup(Path taskDatasetPath, Path stationLocationDatasetPath, char separator) {
+		this(taskDatasetPath, stationLocationDatasetPath, separator, null);
 	}
 
 	public Setup(String nodeP, String stationP) {
-		this(Paths.get(nodeP), Paths.get(stationP), ",");
+		this(Paths.get(nodeP), Paths.get(stationP), ',');
 	}
 
-	private String[][] extract(Path path) {
-		BufferedReader br = null;
+	public Setup(String nodeP, String stationP, String cacheDir) {
+		this(Paths.get(nodeP), Paths.get(stationP), ',', cacheDir == null ? null : Paths.get(cacheDir));
+	}
 
+	/* The SHA-256 digest of the datasets and separator, in hexadecimal. */
+	private String hash(Path... paths) throws IOException {
+		MessageDigest md;
 		try {
-			br = new BufferedReader(new FileReader(path.toFile()));
+			md = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
 
-			String[][] s = new String[(int) Files.lines(path).count()][];
-			String line;
+		ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+		for (Path path : paths)
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				while (channel.read(buffer) >= 0) {
+					md.update(buffer.flip());
+					buffer.clear();
+				}
+			}
+		md.update((byte) separator);
 
-			int i = 0;
-			while ((line = br.readLine()) != null)
-				s[i++] = line.split(charSplit);
+		StringBuilder s = new StringBuilder();
+		for (byte b : md.digest())
+			s.append(String.format("%02x", b));
+		return s.toString();
+	}
 
-			return s;
+	/**
+	 * Read the columns from the cache at <code>path</code>, mapped in memory: a
+	 * magic number and the format version, the number of records and stations,
+	 * then each column.
+	 *
+	 * @return Whether the cache is valid.
+	 */
+	private boolean readCache(Path path) {
+		if (!Files.isRegularFile(path))
+			return false;
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < CACHE_HEADER_LENGTH || buffer.getInt() != CACHE_MAGIC || buffer.getShort() != CACHE_VERSION)
+				return false;
+
+			int n = buffer.getInt(), m = buffer.getInt();
+			if (n < 0 || m < 0 || buffer.remaining() != getCacheLength(n, m) - CACHE_HEADER_LENGTH)
+				return false;
+
+			latitudes = new double[n];
+			longitudes = new double[n];
+			stationLatitudes = new double[m];
+			stationLongitudes = new double[m];
+			buffer.asDoubleBuffer().get(latitudes).get(longitudes).get(stationLatitudes).get(stationLongitudes);
+			buffer.position(buffer.position() + 2 * (n + m) * Double.BYTES);
+
+			attendanceTimes = new int[n];
+			stations = new int[n];
+			buffer.asIntBuffer().get(attendanceTimes).get(stations);
+
+			return true;
 		} catch (IOException e) {
 			e.printStackTrace();
-		} finally {
-			if (br != null)
-				try {
-					br.close();
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
+			return false;
 		}
+	}
 
-		return null;
+	private static long getCacheLength(int n, int m) {
+		return CACHE_HEADER_LENGTH + 2L * (n + m) * Double.BYTES + 2L * n * Integer.BYTES;
 	}
 
-	private Map<String, ArrayList<String>> extractMap(Path path) {
-		BufferedReader br = null;
+	/*
+	 * Write the columns to the cache at path. The cache is written to a
+	 * temporary file first, so that a concurrent session never reads a partial
+	 * cache.
+	 */
+	private void writeCache(Path path) {
+		int n = latitudes.length, m = stationLatitudes.length;
+		ByteBuffer buffer = ByteBuffer.allocate((int) getCacheLength(n, m));
+		buffer.putInt(CACHE_MAGIC).putShort(CACHE_VERSION).putInt(n).putInt(m);
+		buffer.asDoubleBuffer().put(latitudes).put(longitudes).put(stationLatitudes).put(stationLongitudes);
+		buffer.position(buffer.position() + 2 * (n + m) * Double.BYTES);
+		buffer.asIntBuffer().put(attendanceTimes).put(stations);
+		buffer.rewind();
 
 		try {
-			br = new BufferedReader(new FileReader(path.toFile()));
+			Files.createDirectories(path.toAbsolutePath().getParent());
+			Path tmp = path.resolveSibling(String.format("%s.%d.tmp", path.getFileName(), ProcessHandle.current().pid()));
+			try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				while (buffer.hasRemaining())
+					channel.write(buffer);
+			}
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Split <code>line</code> into fields, separated by <code>separator</code>
+	 * unless enclosed in double quotes. Field i is kept in
+	 * <code>fields[slots[i]]</code> if <code>slots[i] >= 0</code>, and the line
+	 * is not read past the last field kept.
+	 *
+	 * @return The number of fields read.
+	 */
+	protected static int split(String line, char separator, int[] slots, String[] fields) {
+		int field = 0, begin = 0, n = line.length();
+		boolean quoted = false;
+
+		for (int i = 0; i <= n && field < slots.length; i++) {
+			char c = i < n ? line.charAt(i) : separator;
+
+			if (c == '"')
+				quoted = !quoted;
+			else if (c == separator && !quoted) {
+				if (slots[field] >= 0) {
+					int end = i;
+					if (end - begin >= 2 && line.charAt(begin) == '"' && line.charAt(end - 1) == '"') {
+						begin++;
+						end--;
+					}
+					fields[slots[field]] = line.substring(begin, end).trim();
+				}
+				field++;
+				begin = i + 1;
+			}
+		}
+
+		return field;
+	}
+
+	/* Read the station locations, as name, latitude and longitude. */
+	private void extractStations(Path path) {
+		int size = 0;
+		double[] lat = new double[64], lng = new double[64];
+		int[] slots = { 0, 1, 2 };
+		String[] fields = new String[3];
 
-			Map<String, ArrayList<String>> m = new HashMap<>();
+		try (BufferedReader br = Files.newBufferedReader(path)) {
 			String line;
-			String[] arr;
-			ArrayList<String> al;
-			String value;
 
 			while ((line = br.readLine()) != null) {
-				arr = line.split(charSplit);
-				al = new ArrayList<>(arr.length);
-				for (String col : arr)
-					al.add(col);
-				value = al.remove(0);
-				m.put(value, al);
-			}
+				if (split(line, separator, slots, fields) < 3)
+					continue;
 
-			return m;
+				try {
+					double latitude = Double.parseDouble(fields[1]), longitude = Double.parseDouble(fields[2]);
+					if (size == lat.length) {
+						lat = Arrays.copyOf(lat, 2 * size);
+						lng = Arrays.copyOf(lng, 2 * size);
+					}
+					lat[size] = latitude;
+					lng[size] = longitude;
+					stationIdx.put(fields[0], size++);
+				} catch (NumberFormatException e) { // e.g., a header
+				}
+			}
 		} catch (IOException e) {
 			e.printStackTrace();
-		} finally {
-			if (br != null)
+		}
+
+		stationLatitudes = Arrays.copyOf(lat, size);
+		stationLongitudes = Arrays.copyOf(lng, size);
+	}
+
+	/**
+	 * Read the node records in a single pass, keeping only the columns used to
+	 * generate the instances. The first line contains the headers. Records with
+	 * invalid values are skipped.
+	 */
+	private void extract(Path path) {
+		int size = 0, invalid = 0;
+		int capacity = 1 << 12;
+		latitudes = new double[capacity];
+		longitudes = new double[capacity];
+		attendanceTimes = new int[capacity];
+		stations = new int[capacity];
+		Map<String, Integer> missingStations = new TreeMap<>();
+
+		try (BufferedReader br = Files.newBufferedReader(path)) {
+			String line = br.readLine();
+			if (line == null)
+				throw new IOException(String.format("%s is empty", path));
+
+			String[] names = new String[line.length() + 1];
+			List<String> headers = Arrays.asList(names).subList(0, split(line, separator, IntStream.range(0, names.length).toArray(), names));
+			String[] columns = { LATITUDE, LONGITUDE, STATION_NAME, STATION_CODE, ATTENDANCE_TIME };
+			int[] slots = new int[headers.size()];
+			Arrays.fill(slots, -1);
+			int last = -1;
+			for (int i = 0; i < columns.length; i++) {
+				int column = headers.indexOf(columns[i]);
+				if (column < 0)
+					throw new IOException(String.format("%s has no %s column", path, columns[i]));
+				slots[column] = i;
+				last = Math.max(last, column);
+			}
+			slots = Arrays.copyOf(slots, last + 1);
+			String[] fields = new String[columns.length];
+
+			while ((line = br.readLine()) != null) {
+				if (split(line, separator, slots, fields) < slots.length) {
+					invalid++;
+					continue;
+				}
+
+				double latitude, longitude;
+				int attendance;
 				try {
-					br.close();
-				} catch (IOException e) {
-					e.printStackTrace();
+					latitude = Double.parseDouble(fields[0]);
+					longitude = Double.parseDouble(fields[1]);
+					attendance = Math.abs(Integer.parseInt(fields[4]));
+				} catch (NumberFormatException e) {
+					invalid++;
+					continue;
+				}
+
+				Integer station = stationIdx.get(fields[2]);
+				if (station == null)
+					station = stationIdx.get(fields[3]);
+				if (station == null)
+					missingStations.merge(String.format("%s (%s)", fields[2], fields[3]), 1, Integer::sum);
+
+				if (size == capacity) {
+					capacity *= 2;
+					latitudes = Arrays.copyOf(latitudes, capacity);
+					longitudes = Arrays.copyOf(longitudes, capacity);
+					attendanceTimes = Arrays.copyOf(attendanceTimes, capacity);
+					stations = Arrays.copyOf(stations, capacity);
 				}
+
+				latitudes[size] = latitude;
+				longitudes[size] = longitude;
+				attendanceTimes[size] = attendance;
+				stations[size++] = station == null ? -1 : station;
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
 
-		return null;
+		latitudes = Arrays.copyOf(latitudes, size);
+		longitudes = Arrays.copyOf(longitudes, size);
+		attendanceTimes = Arrays.copyOf(attendanceTimes, size);
+		stations = Arrays.copyOf(stations, size);
+
+		if (invalid > 0)
+			System.err.format("Skipped %d invalid records of %s\n", invalid, path);
+		for (Map.Entry<String, Integer> e : missingStations.entrySet())
+			System.err.format("Input station dataset does not contain %s, skipping it in %d records\n", e.getKey(), e.getValue());
+	}
+
+	/**
+	 * Generates a MARSC instance from the records following the ones used by the
+	 * previous call.
+	 *
+	 * @see #generate(String, int, float, int, long)
+	 */
+	public MARSC generate(String type, int agentNr, float ratio) {
+		if (currIdx >= recordNr)
+			currIdx = 0;
+
+		int taskNr = (int) Math.ceil(agentNr * ratio);
+		MARSC problem = generateAt(currIdx, type, agentNr, ratio, ThreadLocalRandom.current().nextLong());
+		currIdx = (currIdx + taskNr) % recordNr;
+
+		return problem;
 	}
 
 	/**
@@ -140,69 +390,74 @@ public class Setup {
 	 * - Each node has exactly 1 location.
 	 * - Homogeneous rewards.
 	 *
-	 * @param type    The MARSC type.
-	 * @param agentNr The number of agents in the instance.
-	 * @param ratio   The tasks/agents ratio, that is, how many tasks per agent the
-	 *                instance must contain.
+	 * Replicate r uses the records following the ones of replicate r - 1 (from
+	 * the first record, for replicate 0), hence instances can be generated in
+	 * any order, or in parallel. As in the original benchmark, which restarted
+	 * from the first record at each test configuration, the records do not
+	 * depend on the problem class. Time windows, workloads, task ordering and
+	 * agents are drawn from <code>seed</code>, and coalition values from
+	 * <code>seed</code> and <code>type</code>: with the same seed, classes only
+	 * differ in their coalition values.
+	 *
+	 * @param type      The MARSC type.
+	 * @param agentNr   The number of agents in the instance.
+	 * @param ratio     The tasks/agents ratio, that is, how many tasks per agent
+	 *                  the instance must contain.
+	 * @param replicate The replicate number.
+	 * @param seed      The seed from which all the random values are drawn.
 	 * @return A MARSC instance.
-	 * @throws Exception
 	 */
-	public MARSC generate(String type, int agentNr, float ratio) {
-		if (currIdx >= nodeRecords.length)
-			currIdx = 1;
+	public MARSC generate(String type, int agentNr, float ratio, int replicate, long seed) {
+		int taskNr = (int) Math.ceil(agentNr * ratio);
+		return generateAt((int) ((long) replicate * taskNr % recordNr), type, agentNr, ratio, seed);
+	}
+
+	/**
+	 * Generates a MARSC instance from the records following
+	 * <code>firstIdx</code> (included), wrapping around the last one.
+	 *
+	 * @see #generate(String, int, float, int, long)
+	 */
+	public MARSC generateAt(int firstIdx, String type, int agentNr, float ratio, long seed) {
+		SplittableRandom rnd = new SplittableRandom(seed);
+		int idx = firstIdx;
 
 		Task[] tasks = new Task[(int) Math.ceil(agentNr * ratio)];
 		Map<Task, Task> order = new HashMap<>();
-		int i, attendance, earliestTime, softLatestTime, hardLatestTime;
+		int i, station, earliestTime, softLatestTime, hardLatestTime;
 		ArrayList<LocationLatLng> initialAgentLocations = new ArrayList<>();
-		ArrayList<String> station;
 		LocationLatLng location;
 		Location[] possibleLocations;
 		TimeWindow timeWindow, twPrev, tw;
 		int workload;
 
-		int latIdx = nodeLabel.get("Latitude");
-		int lngIdx = nodeLabel.get("Longitude");
-		int stationIdx = nodeLabel.get("DeployedFromStation_Name");
-		int stationCodeIdx = nodeLabel.get("DeployedFromStation_Code");
-		int attendanceTimeIdx = nodeLabel.get("AttendanceTimeSeconds");
-
 		for (i = 0; i < tasks.length; i++) {
 			possibleLocations = new LocationLatLng[] {
-				new LocationLatLng(Double.parseDouble(nodeRecords[currIdx][latIdx]),
-				Double.parseDouble(nodeRecords[currIdx][lngIdx])) // 1 location per node
+				new LocationLatLng(latitudes[idx], longitudes[idx]) // 1 location per node
 			};
 
 			location = null;
 
-			station = stationsMap.get(nodeRecords[currIdx][stationIdx]);
-			if (station == null)
-				stationsMap.get(nodeRecords[currIdx][stationCodeIdx]);
-
-			if (station == null) // if no corresponding station name or code
-				System.err.println(String.format("Input station dataset does not contain %s (%s), skipping it",
-						nodeRecords[currIdx][stationIdx], nodeRecords[currIdx][stationCodeIdx]));
-			else {
-				location = new LocationLatLng(Double.parseDouble(station.get(0)), Double.parseDouble(station.get(1)));
+			station = stations[idx];
+			if (station >= 0) { // if the station dataset contains it
+				location = new LocationLatLng(stationLatitudes[station], stationLongitudes[station]);
 				initialAgentLocations.add(location);
 			}
 
-			attendance = (int) Math.abs(Integer.parseInt(nodeRecords[currIdx][attendanceTimeIdx]));
-
 			earliestTime = 0;
 			if (location != null)
 				earliestTime = possibleLocations[0].getTravelTimeTo(location, 1f);
-			hardLatestTime = earliestTime + attendance;
+			hardLatestTime = earliestTime + attendanceTimes[idx];
 			softLatestTime = rnd.nextInt(earliestTime, hardLatestTime + 1);
 			timeWindow = new TimeWindow(earliestTime, softLatestTime, hardLatestTime);
 
 			//workload = (int) Math.ceil(new UniformRealDistribution(attendance * 0.5f, attendance).sample());
-			workload = unifW.sample();
+			workload = rnd.nextInt(10, 301);
 
 			tasks[i] = new Task(i, new Demand(possibleLocations, workload, 1, timeWindow));
 
 			// task ordering is a partial chain decided by the flip of a coin
-			if (i > 0 && ThreadLocalRandom.current().nextInt(2) == 0) {
+			if (i > 0 && rnd.nextInt(2) == 0) {
 				twPrev = tasks[i-1].demand.timeWindow;
 				tw = tasks[i].demand.timeWindow;
 				if (twPrev.earliestTime <= tw.earliestTime
@@ -210,8 +465,8 @@ public class Setup {
 					order.put(tasks[i], tasks[i - 1]);
 			}
 
-			if (++currIdx >= nodeRecords.length)
-				currIdx = 1; // we start from 1 since row 0 contains the headers
+			if (++idx >= recordNr)
+				idx = 0;
 		}
 
 		Agent[] agents = new Agent[agentNr];
@@ -219,7 +474,7 @@ public class Setup {
 			// all agents have the same speed
 		    agents[i] = new Agent(i, initialAgentLocations.get(rnd.nextInt(initialAgentLocations.size())), 1);
 
-		return Problem.getInstance(type, tasks, order, agents);
+		return Problem.getInstance(type, tasks, order, agents, Problem.getValueSeed(type, seed));
 	}
 
 }
@@ -0,0 +1,498 @@
+package bip;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The bounded dual simplex method for the linear relaxation of a {@link Model},
+ * over a subset of its rows.
+ *
+ * All the variables of the model must have finite bounds. Then, any basis is
+ * dual feasible once each nonbasic variable is at the bound given by the sign
+ * of its reduced cost, hence there is no phase I: rows can be added (with their
+ * slack in the basis) and bounds changed between calls to {@link #solve()},
+ * and the last basis is the starting point of the next call.
+ *
+ * The basis inverse is kept explicitly and updated at each pivot, which is
+ * only practical for models with up to a few thousand active rows.
+ *
+ * @author lcpz
+ */
+public class DualSimplex {
+
+	public enum Status {
+		OPTIMAL,
+		INFEASIBLE,
+		ITERATION_LIMIT
+	}
+
+	/* Tolerances on bounds, pivots and reduced costs. */
+	private static final double FEASIBILITY_TOLERANCE = 1e-7, PIVOT_TOLERANCE = 1e-9, OPTIMALITY_TOLERANCE = 1e-9;
+
+	/* Iterations between two recomputations of basic values and reduced costs from the basis inverse. */
+	private static final int RECOMPUTE_FREQUENCY = 100;
+
+	private final Model model;
+
+	/* Structural variables, followed by the slack of each active row. */
+	private final int n;
+	private int m;
+	private double[] lb, ub, cost, x, d;
+	private boolean[] atUpper;
+
+	/* Model index of each active row, and its right-hand side. */
+	private int[] rows;
+	private double[] rhs;
+	private final BitSet active = new BitSet();
+
+	/* Entries of the active rows, by structural variable. */
+	private int[][] colRows;
+	private double[][] colCoefs;
+	private int[] colSizes;
+
+	/* basis[r] is the basic variable of row r, position[j] is the row of variable j (-1 if nonbasic). */
+	private int[] basis, position;
+	private double[][] inverse;
+
+	/* Basic values must be recomputed, after bound changes. */
+	private boolean dirty;
+
+	private long iterations;
+	private long iterationLimit = Long.MAX_VALUE / 2;
+
+	public DualSimplex(Model model) {
+		this.model = model;
+		n = model.getVariablesNr();
+
+		lb = new double[n + 64];
+		ub = new double[lb.length];
+		cost = new double[lb.length];
+		x = new double[lb.length];
+		d = new double[lb.length];
+		atUpper = new boolean[lb.length];
+		position = new int[lb.length];
+		Arrays.fill(position, -1);
+
+		rows = new int[64];
+		rhs = new double[rows.length];
+		basis = new int[rows.length];
+		inverse = new double[rows.length][rows.length];
+
+		colRows = new int[n][];
+		colCoefs = new double[n][];
+		colSizes = new int[n];
+
+		for (int j = 0; j < n; j++) {
+			try {
+				if (Double.isInfinite(model.getLowerBound(j)) || Double.isInfinite(model.getUpperBound(j)))
+					throw new Exception(String.format("variable %d has an infinite bound", j));
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+
+			lb[j] = model.getLowerBound(j);
+			ub[j] = model.getUpperBound(j);
+			cost[j] = d[j] = model.getObjectiveCoefficient(j);
+			atUpper[j] = d[j] < 0;
+			x[j] = atUpper[j] ? ub[j] : lb[j];
+			colRows[j] = new int[4];
+			colCoefs[j] = new double[4];
+		}
+	}
+
+	public void setIterationLimit(long iterationLimit) {
+		this.iterationLimit = iterationLimit;
+	}
+
+	/**
+	 * Add row <code>r</code> of the model, with its slack in the basis.
+	 */
+	public void addRow(int r) {
+		int i, j, p, t, row = m;
+
+		if (m == rows.length) {
+			int length = 2 * m;
+			rows = Arrays.copyOf(rows, length);
+			rhs = Arrays.copyOf(rhs, length);
+			basis = Arrays.copyOf(basis, length);
+			double[][] a = new double[length][];
+			for (i = 0; i < length; i++)
+				a[i] = i < m ? Arrays.copyOf(inverse[i], length) : new double[length];
+			inverse = a;
+		}
+
+		int s = n + m; // slack
+		if (s == lb.length) {
+			int length = 2 * s;
+			lb = Arrays.copyOf(lb, length);
+			ub = Arrays.copyOf(ub, length);
+			cost = Arrays.copyOf(cost, length);
+			x = Arrays.copyOf(x, length);
+			d = Arrays.copyOf(d, length);
+			atUpper = Arrays.copyOf(atUpper, length);
+			position = Arrays.copyOf(position, length);
+			Arrays.fill(position, s, length, -1);
+		}
+
+		rows[row] = r;
+		rhs[row] = model.getRhs(r);
+		active.set(r);
+		lb[s] = model.getSense(r) == Model.Sense.GE ? Double.NEGATIVE_INFINITY : 0;
+		ub[s] = model.getSense(r) == Model.Sense.LE ? Double.POSITIVE_INFINITY : 0;
+
+		/* The new row of the inverse is minus the row of the basic variables combined by their coefficients. */
+		double[] inv = inverse[row];
+		Arrays.fill(inv, 0);
+		double activity = 0, coef;
+
+		for (t = model.getRowStart(r); t < model.getRowStart(r + 1); t++) {
+			j = model.getRowVariable(t);
+			coef = model.getRowCoefficient(t);
+			activity += coef * x[j];
+
+			if (colSizes[j] == colRows[j].length) {
+				colRows[j] = Arrays.copyOf(colRows[j], 2 * colSizes[j]);
+				colCoefs[j] = Arrays.copyOf(colCoefs[j], 2 * colSizes[j]);
+			}
+			colRows[j][colSizes[j]] = row;
+			colCoefs[j][colSizes[j]++] = coef;
+
+			if ((p = position[j]) > -1)
+				for (i = 0; i < m; i++)
+					inv[i] -= coef * inverse[p][i];
+		}
+		for (i = 0; i < m; i++)
+			inverse[i][row] = 0;
+		inv[row] = 1;
+
+		cost[s] = d[s] = 0;
+		x[s] = rhs[row] - activity;
+		atUpper[s] = false;
+		basis[row] = s;
+		position[s] = row;
+		m++;
+	}
+
+	/**
+	 * @return The number of active rows.
+	 */
+	public int getRowsNr() {
+		return m;
+	}
+
+	/**
+	 * @return True if row <code>r</code> of the model is active.
+	 */
+	public boolean isActive(int r) {
+		return active.get(r);
+	}
+
+	/**
+	 * Remove the active rows whose slack is basic and feasible, whose dual value
+	 * is then 0. The basis stays optimal, if it was.
+	 *
+	 * @return The number of rows removed.
+	 */
+	public int removeSlackRows() {
+		if (dirty)
+			recompute();
+
+		/* Rows removed, and positions in the basis of their slacks. */
+		boolean[] removed = new boolean[m], freed = new boolean[m];
+		int i, j, k, p, t, removedNr = 0;
+
+		for (i = 0; i < m; i++) {
+			j = n + i;
+			if ((p = position[j]) > -1 && x[j] >= lb[j] - FEASIBILITY_TOLERANCE && x[j] <= ub[j] + FEASIBILITY_TOLERANCE) {
+				removed[i] = freed[p] = true;
+				removedNr++;
+			}
+		}
+
+		if (removedNr == 0)
+			return 0;
+
+		/* New index of each row (-1 if removed), and of each basis position. */
+		int[] rowIndex = new int[m], positionIndex = new int[m];
+		for (i = k = 0; i < m; i++)
+			rowIndex[i] = removed[i] ? -1 : k++;
+		for (p = k = 0; p < m; p++)
+			positionIndex[p] = freed[p] ? -1 : k++;
+
+		/* Removing row i and the position of its slack from the basis leaves the inverse of the remaining basis. */
+		double[][] a = inverse.clone();
+		for (p = 0; p < m; p++)
+			if (positionIndex[p] > -1) {
+				double[] row = a[p];
+				for (i = 0; i < m; i++)
+					if (rowIndex[i] > -1)
+						row[rowIndex[i]] = row[i];
+				inverse[positionIndex[p]] = row;
+			}
+
+		for (i = 0; i < m; i++)
+			if (removed[i])
+				active.clear(rows[i]);
+
+		int[] newBasis = new int[basis.length];
+		for (p = 0; p < m; p++)
+			if (positionIndex[p] > -1) {
+				j = basis[p];
+				newBasis[positionIndex[p]] = j < n ? j : n + rowIndex[j - n];
+			}
+
+		for (i = 0; i < m; i++)
+			if (rowIndex[i] > -1) {
+				k = rowIndex[i];
+				rows[k] = rows[i];
+				rhs[k] = rhs[i];
+				lb[n + k] = lb[n + i];
+				ub[n + k] = ub[n + i];
+				cost[n + k] = cost[n + i];
+				x[n + k] = x[n + i];
+				d[n + k] = d[n + i];
+				atUpper[n + k] = atUpper[n + i];
+			}
+
+		for (j = 0; j < n; j++) {
+			for (t = k = 0; t < colSizes[j]; t++)
+				if ((i = rowIndex[colRows[j][t]]) > -1) {
+					colRows[j][k] = i;
+					colCoefs[j][k++] = colCoefs[j][t];
+				}
+			colSizes[j] = k;
+		}
+
+		/* The freed inverse rows are reused by rows added later. */
+		for (p = 0, k = m - removedNr; p < m; p++)
+			if (freed[p])
+				inverse[k++] = a[p];
+
+		m -= removedNr;
+		basis = newBasis;
+		Arrays.fill(position, -1);
+		for (p = 0; p < m; p++)
+			position[basis[p]] = p;
+
+		return removedNr;
+	}
+
+	/**
+	 * Change the bounds of structural variable <code>j</code>.
+	 */
+	public void setBounds(int j, double lowerBound, double upperBound) {
+		if (lb[j] == lowerBound && ub[j] == upperBound)
+			return;
+
+		lb[j] = lowerBound;
+		ub[j] = upperBound;
+
+		if (position[j] < 0) {
+			atUpper[j] = d[j] < 0;
+			x[j] = atUpper[j] ? ub[j] : lb[j];
+			dirty = true;
+		}
+	}
+
+	public Status solve() {
+		int r, q, j, i;
+		long limit = iterations + iterationLimit;
+		double[] alpha = new double[n + m], w = new double[m];
+		double infeasibility, delta, bound, ratio, bestRatio, theta;
+		boolean fresh = false; // basic values and reduced costs just recomputed
+
+		if (dirty) {
+			recompute();
+			fresh = true;
+		}
+
+		for (int it = 1; ; it++) {
+			if (it % RECOMPUTE_FREQUENCY == 0) {
+				recompute();
+				fresh = true;
+			}
+
+			/* Leaving variable: the basic variable with the largest bound violation. */
+			r = -1;
+			infeasibility = FEASIBILITY_TOLERANCE;
+			for (i = 0; i < m; i++) {
+				j = basis[i];
+				delta = Math.max(lb[j] - x[j], x[j] - ub[j]);
+				if (delta > infeasibility) {
+					infeasibility = delta;
+					r = i;
+				}
+			}
+
+			if (r < 0) {
+				if (fresh)
+					return Status.OPTIMAL;
+				recompute(); // confirm with fresh values
+				fresh = true;
+				continue;
+			}
+
+			if (iterations++ >= limit)
+				return Status.ITERATION_LIMIT;
+			fresh = false;
+
+			int leaving = basis[r];
+			boolean toLower = x[leaving] < lb[leaving];
+			bound = toLower ? lb[leaving] : ub[leaving];
+
+			/* Row r of the tableau, for nonbasic variables. */
+			double[] inv = inverse[r];
+			for (j = 0; j < n; j++)
+				if (position[j] < 0) {
+					double a = 0;
+					for (int t = 0; t < colSizes[j]; t++)
+						a += inv[colRows[j][t]] * colCoefs[j][t];
+					alpha[j] = a;
+				}
+			for (i = 0; i < m; i++)
+				alpha[n + i] = inv[i];
+
+			/* Entering variable: ratio test on the reduced costs. */
+			q = -1;
+			bestRatio = Double.POSITIVE_INFINITY;
+			for (j = 0; j < n + m; j++) {
+				if (position[j] > -1 || lb[j] == ub[j] || Math.abs(alpha[j]) < PIVOT_TOLERANCE)
+					continue;
+
+				// the basic variable increases if the entering variable leaves its lower bound with a negative coefficient
+				boolean increases = atUpper[j] == alpha[j] > 0;
+				if (increases != toLower)
+					continue;
+
+				ratio = Math.max(0, atUpper[j] ? -d[j] : d[j]) / Math.abs(alpha[j]);
+				if (q < 0 || ratio < bestRatio - OPTIMALITY_TOLERANCE
+						|| ratio < bestRatio + OPTIMALITY_TOLERANCE && Math.abs(alpha[j]) > Math.abs(alpha[q])) {
+					bestRatio = ratio;
+					q = j;
+				}
+			}
+
+			if (q < 0)
+				return Status.INFEASIBLE;
+
+			/* Column q of the tableau. */
+			if (q < n) {
+				Arrays.fill(w, 0, m, 0);
+				for (int t = 0; t < colSizes[q]; t++) {
+					int row = colRows[q][t];
+					double coef = colCoefs[q][t];
+					for (i = 0; i < m; i++)
+						w[i] += inverse[i][row] * coef;
+				}
+			} else
+				for (i = 0; i < m; i++)
+					w[i] = inverse[i][q - n];
+
+			/* Primal update. */
+			delta = (x[leaving] - bound) / w[r];
+			x[q] += delta;
+			for (i = 0; i < m; i++)
+				x[basis[i]] -= w[i] * delta;
+			x[leaving] = bound;
+
+			/* Dual update. */
+			theta = d[q] / alpha[q];
+			for (j = 0; j < n + m; j++)
+				if (position[j] < 0)
+					d[j] -= theta * alpha[j];
+			d[leaving] = -theta;
+			d[q] = 0;
+
+			/* Inverse update. */
+			double pivot = w[r];
+			for (i = 0; i < m; i++)
+				inv[i] /= pivot;
+			for (i = 0; i < m; i++)
+				if (i != r && w[i] != 0) {
+					double f = w[i];
+					double[] row = inverse[i];
+					for (int k = 0; k < m; k++)
+						row[k] -= f * inv[k];
+				}
+
+			basis[r] = q;
+			position[q] = r;
+			position[leaving] = -1;
+			atUpper[leaving] = !toLower;
+		}
+	}
+
+	/* Basic values and reduced costs from the basis inverse. */
+	private void recompute() {
+		int i, j, t;
+		double[] b = Arrays.copyOf(rhs, m), y = new double[m];
+
+		for (j = 0; j < n; j++)
+			if (position[j] < 0 && x[j] != 0)
+				for (t = 0; t < colSizes[j]; t++)
+					b[colRows[j][t]] -= colCoefs[j][t] * x[j];
+		for (i = 0; i < m; i++)
+			if (position[n + i] < 0)
+				b[i] -= x[n + i];
+
+		for (i = 0; i < m; i++) {
+			double v = 0;
+			for (int k = 0; k < m; k++)
+				v += inverse[i][k] * b[k];
+			x[basis[i]] = v;
+		}
+
+		/* Duals y = c_B B^-1, and reduced costs d_j = c_j - y A_j. */
+		for (i = 0; i < m; i++)
+			if (cost[basis[i]] != 0)
+				for (int k = 0; k < m; k++)
+					y[k] += cost[basis[i]] * inverse[i][k];
+
+		for (j = 0; j < n + m; j++) {
+			if (position[j] > -1) {
+				d[j] = 0;
+				continue;
+			}
+
+			double v = cost[j];
+			if (j < n)
+				for (t = 0; t < colSizes[j]; t++)
+					v -= y[colRows[j][t]] * colCoefs[j][t];
+			else
+				v -= y[j - n];
+			d[j] = v;
+
+			/* Keep dual feasibility, if lost to numerical errors. */
+			if (lb[j] != ub[j] && atUpper[j] != d[j] < 0 && !Double.isInfinite(d[j] < 0 ? ub[j] : lb[j])
+					&& Math.abs(d[j]) > OPTIMALITY_TOLERANCE) {
+				atUpper[j] = d[j] < 0;
+				x[j] = atUpper[j] ? ub[j] : lb[j];
+				dirty = true;
+			}
+		}
+
+		if (dirty) {
+			dirty = false;
+			recompute();
+		}
+	}
+
+	public double getObjectiveValue() {
+		double value = 0;
+		for (int j = 0; j < n; j++)
+			value += cost[j] * x[j];
+		return value;
+	}
+
+	/**
+	 * @return The values of the structural variables.
+	 */
+	public double[] getValues() {
+		return Arrays.copyOf(x, n);
+	}
+
+	public long getIterations() {
+		return iterations;
+	}
+
+}
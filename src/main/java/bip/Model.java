@@ -0,0 +1,234 @@
+package bip;
+
+import java.util.Arrays;
+
+/**
+ * A Binary Integer Program (BIP) independent from any solver: variables with
+ * bounds and types, a linear objective to minimise, and sparse linear rows.
+ *
+ * Variables are identified by their index, in order of creation. Rows are
+ * stored in compressed sparse row format, in primitive arrays that grow as
+ * needed, so that large models do not create an object per coefficient.
+ *
+ * @author lcpz
+ */
+public class Model {
+
+	public enum Type {
+		BINARY,
+		INTEGER,
+		CONTINUOUS
+	}
+
+	public enum Sense {
+		LE, // at most the right-hand side
+		GE, // at least the right-hand side
+		EQ
+	}
+
+	/**
+	 * A linear expression, to be added to a model as a row. Terms are not merged,
+	 * hence each variable should appear at most once.
+	 */
+	public static class Row {
+		private int[] vars = new int[8];
+		private double[] coefs = new double[8];
+		private int size;
+
+		public Row add(int var, double coef) {
+			if (size == vars.length) {
+				vars = Arrays.copyOf(vars, 2 * size);
+				coefs = Arrays.copyOf(coefs, 2 * size);
+			}
+
+			vars[size] = var;
+			coefs[size++] = coef;
+
+			return this;
+		}
+
+		/**
+		 * Add the terms of variables <code>firstVar</code> to
+		 * <code>firstVar + coefs.length - 1</code>.
+		 */
+		public Row add(int firstVar, double[] coefs) {
+			for (int n = 0; n < coefs.length; n++)
+				add(firstVar + n, coefs[n]);
+			return this;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public int getVariable(int n) {
+			return vars[n];
+		}
+
+		public double getCoefficient(int n) {
+			return coefs[n];
+		}
+	}
+
+	/* Variables */
+	private double[] lowerBounds = new double[1024], upperBounds = new double[1024], objective = new double[1024];
+	private Type[] types = new Type[1024];
+	private int variablesNr;
+
+	/* Rows: the terms of row r are from rowStarts[r] to rowStarts[r + 1] - 1. */
+	private int[] rowStarts = new int[1025], rowVars = new int[4096];
+	private double[] rowCoefs = new double[4096], rhs = new double[1024];
+	private Sense[] senses = new Sense[1024];
+	private int rowsNr;
+
+	/**
+	 * Add <code>n</code> variables with the same bounds and type, and objective
+	 * coefficient 0.
+	 *
+	 * @return The index of the first variable added.
+	 */
+	public int addVariables(int n, double lowerBound, double upperBound, Type type) {
+		try {
+			if (n < 0)
+				throw new Exception("the number of variables must be non-negative");
+			if (lowerBound > upperBound)
+				throw new Exception(String.format("empty bounds [%s, %s]", lowerBound, upperBound));
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+		if (variablesNr + n > types.length) {
+			int length = Math.max(2 * types.length, variablesNr + n);
+			lowerBounds = Arrays.copyOf(lowerBounds, length);
+			upperBounds = Arrays.copyOf(upperBounds, length);
+			objective = Arrays.copyOf(objective, length);
+			types = Arrays.copyOf(types, length);
+		}
+
+		int first = variablesNr;
+		Arrays.fill(lowerBounds, first, first + n, lowerBound);
+		Arrays.fill(upperBounds, first, first + n, upperBound);
+		Arrays.fill(types, first, first + n, type);
+		variablesNr += n;
+
+		return first;
+	}
+
+	public int addBinaryVariables(int n) {
+		return addVariables(n, 0, 1, Type.BINARY);
+	}
+
+	public void setObjectiveCoefficient(int var, double coef) {
+		objective[var] = coef;
+	}
+
+	public void setUpperBound(int var, double upperBound) {
+		upperBounds[var] = upperBound;
+	}
+
+	/**
+	 * Add the row <code>row</code> (sense) <code>rhs</code>.
+	 *
+	 * @return The index of the row.
+	 */
+	public int add(Row row, Sense sense, double rhs) {
+		if (rowsNr == senses.length) {
+			rowStarts = Arrays.copyOf(rowStarts, 2 * rowsNr + 1);
+			senses = Arrays.copyOf(senses, 2 * rowsNr);
+			this.rhs = Arrays.copyOf(this.rhs, 2 * rowsNr);
+		}
+
+		int start = rowStarts[rowsNr];
+		if (start + row.size > rowVars.length) {
+			int length = Math.max(2 * rowVars.length, start + row.size);
+			rowVars = Arrays.copyOf(rowVars, length);
+			rowCoefs = Arrays.copyOf(rowCoefs, length);
+		}
+
+		System.arraycopy(row.vars, 0, rowVars, start, row.size);
+		System.arraycopy(row.coefs, 0, rowCoefs, start, row.size);
+		senses[rowsNr] = sense;
+		this.rhs[rowsNr] = rhs;
+		rowStarts[++rowsNr] = start + row.size;
+
+		return rowsNr - 1;
+	}
+
+	public int addLe(Row row, double rhs) {
+		return add(row, Sense.LE, rhs);
+	}
+
+	public int addGe(Row row, double rhs) {
+		return add(row, Sense.GE, rhs);
+	}
+
+	public int addEq(Row row, double rhs) {
+		return add(row, Sense.EQ, rhs);
+	}
+
+	public int getVariablesNr() {
+		return variablesNr;
+	}
+
+	public double getLowerBound(int var) {
+		return lowerBounds[var];
+	}
+
+	public double getUpperBound(int var) {
+		return upperBounds[var];
+	}
+
+	public Type getType(int var) {
+		return types[var];
+	}
+
+	public double getObjectiveCoefficient(int var) {
+		return objective[var];
+	}
+
+	public int getRowsNr() {
+		return rowsNr;
+	}
+
+	public int getNonZerosNr() {
+		return rowStarts[rowsNr];
+	}
+
+	/* The terms of row r are from getRowStart(r) to getRowStart(r + 1) - 1. */
+	public int getRowStart(int r) {
+		return rowStarts[r];
+	}
+
+	public int getRowVariable(int n) {
+		return rowVars[n];
+	}
+
+	public double getRowCoefficient(int n) {
+		return rowCoefs[n];
+	}
+
+	public Sense getSense(int r) {
+		return senses[r];
+	}
+
+	public double getRhs(int r) {
+		return rhs[r];
+	}
+
+	/**
+	 * @return The value of the objective function for the values of the
+	 *         variables <code>values</code>.
+	 */
+	public double getObjectiveValue(double[] values) {
+		double value = 0;
+		for (int var = 0; var < variablesNr; var++)
+			value += objective[var] * values[var];
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d variables, %d rows, %d non-zeros", variablesNr, rowsNr, getNonZerosNr());
+	}
+
+}
@@ -0,0 +1,200 @@
+package bip;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Write a {@link Model} in LP or (free) MPS format, readable by CPLEX and most
+ * other solvers.
+ *
+ * The model is streamed row by row (column by column for MPS) from its arrays,
+ * without building strings for the whole model. Variables are named x0, x1,
+ * ... and rows c0, c1, ..., as their indexes.
+ *
+ * @author lcpz
+ */
+public class ModelWriter {
+
+	/* Terms per line, to stay well below the line length limit of the LP format. */
+	private static final int TERMS_PER_LINE = 8;
+
+	/**
+	 * Write the model to <code>path</code>, in MPS format if the file extension
+	 * is .mps, in LP format otherwise.
+	 */
+	public static void write(Model model, String path) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.US_ASCII)) {
+			if (path.toLowerCase().endsWith(".mps"))
+				writeMPS(model, writer);
+			else
+				writeLP(model, writer);
+		}
+	}
+
+	public static void writeLP(Model model, Writer writer) throws IOException {
+		int n, var, r, terms;
+
+		writer.write("\\ " + model + "\n");
+		writer.write("Minimize\n obj:");
+		terms = 0;
+		for (var = 0; var < model.getVariablesNr(); var++)
+			if (model.getObjectiveCoefficient(var) != 0)
+				writeTerm(writer, model.getObjectiveCoefficient(var), var, terms++);
+		if (terms == 0 && model.getVariablesNr() > 0)
+			writeTerm(writer, 0, 0, 0);
+
+		writer.write("\nSubject To\n");
+		for (r = 0; r < model.getRowsNr(); r++) {
+			writer.write(" c" + r + ":");
+			terms = 0;
+			for (n = model.getRowStart(r); n < model.getRowStart(r + 1); n++)
+				writeTerm(writer, model.getRowCoefficient(n), model.getRowVariable(n), terms++);
+			if (terms == 0)
+				writeTerm(writer, 0, 0, 0);
+
+			switch (model.getSense(r)) {
+				case LE:
+					writer.write(" <= ");
+					break;
+				case GE:
+					writer.write(" >= ");
+					break;
+				default:
+					writer.write(" = ");
+			}
+			writer.write(format(model.getRhs(r)) + "\n");
+		}
+
+		writer.write("Bounds\n");
+		double lb, ub;
+		for (var = 0; var < model.getVariablesNr(); var++) {
+			lb = model.getLowerBound(var);
+			ub = model.getUpperBound(var);
+
+			if (model.getType(var) == Model.Type.BINARY && lb == 0 && ub == 1
+					|| model.getType(var) != Model.Type.BINARY && lb == 0 && ub == Double.POSITIVE_INFINITY)
+				continue; // default bounds
+
+			if (lb == ub)
+				writer.write(" x" + var + " = " + format(lb) + "\n");
+			else if (lb == Double.NEGATIVE_INFINITY && ub == Double.POSITIVE_INFINITY)
+				writer.write(" x" + var + " free\n");
+			else
+				writer.write(" " + format(lb) + " <= x" + var + " <= " + format(ub) + "\n");
+		}
+
+		writeVariables(writer, model, Model.Type.BINARY, "Binaries");
+		writeVariables(writer, model, Model.Type.INTEGER, "Generals");
+
+		writer.write("End\n");
+	}
+
+	private static void writeTerm(Writer writer, double coef, int var, int n) throws IOException {
+		if (n > 0 && n % TERMS_PER_LINE == 0)
+			writer.write("\n   ");
+		writer.write(coef < 0 ? " - " : " + ");
+		writer.write(format(Math.abs(coef)) + " x" + var);
+	}
+
+	private static void writeVariables(Writer writer, Model model, Model.Type type, String section) throws IOException {
+		int n = 0;
+
+		for (int var = 0; var < model.getVariablesNr(); var++)
+			if (model.getType(var) == type) {
+				if (n == 0)
+					writer.write(section + "\n");
+				writer.write(n % TERMS_PER_LINE == TERMS_PER_LINE - 1 ? " x" + var + "\n" : " x" + var);
+				n++;
+			}
+
+		if (n % TERMS_PER_LINE != 0)
+			writer.write("\n");
+	}
+
+	public static void writeMPS(Model model, Writer writer) throws IOException {
+		int var, r, n, variablesNr = model.getVariablesNr();
+
+		writer.write("NAME bip\nROWS\n N obj\n");
+		for (r = 0; r < model.getRowsNr(); r++)
+			writer.write(String.format(" %s c%d\n", model.getSense(r) == Model.Sense.LE ? "L"
+				: model.getSense(r) == Model.Sense.GE ? "G" : "E", r));
+
+		/* The rows are stored by row, and MPS lists them by column. */
+		int[] colStarts = new int[variablesNr + 1];
+		for (n = 0; n < model.getNonZerosNr(); n++)
+			colStarts[model.getRowVariable(n) + 1]++;
+		for (var = 0; var < variablesNr; var++)
+			colStarts[var + 1] += colStarts[var];
+
+		int[] next = colStarts.clone(), colRows = new int[model.getNonZerosNr()];
+		double[] colCoefs = new double[colRows.length];
+		for (r = 0; r < model.getRowsNr(); r++)
+			for (n = model.getRowStart(r); n < model.getRowStart(r + 1); n++) {
+				var = model.getRowVariable(n);
+				colRows[next[var]] = r;
+				colCoefs[next[var]++] = model.getRowCoefficient(n);
+			}
+
+		writer.write("COLUMNS\n");
+		boolean integer = false;
+		for (var = 0; var < variablesNr; var++) {
+			if (integer != (model.getType(var) != Model.Type.CONTINUOUS)) {
+				integer = !integer;
+				writer.write(integer ? " MARKER 'MARKER' 'INTORG'\n" : " MARKER 'MARKER' 'INTEND'\n");
+			}
+
+			if (model.getObjectiveCoefficient(var) != 0 || colStarts[var] == colStarts[var + 1])
+				writer.write(" x" + var + " obj " + format(model.getObjectiveCoefficient(var)) + "\n");
+			for (n = colStarts[var]; n < colStarts[var + 1]; n++)
+				writer.write(" x" + var + " c" + colRows[n] + " " + format(colCoefs[n]) + "\n");
+		}
+		if (integer)
+			writer.write(" MARKER 'MARKER' 'INTEND'\n");
+
+		writer.write("RHS\n");
+		for (r = 0; r < model.getRowsNr(); r++)
+			if (model.getRhs(r) != 0)
+				writer.write(" rhs c" + r + " " + format(model.getRhs(r)) + "\n");
+
+		writer.write("BOUNDS\n");
+		double lb, ub;
+		for (var = 0; var < variablesNr; var++) {
+			lb = model.getLowerBound(var);
+			ub = model.getUpperBound(var);
+
+			if (model.getType(var) == Model.Type.BINARY && lb == 0 && ub == 1)
+				writer.write(" BV bnd x" + var + "\n");
+			else if (lb == ub)
+				writer.write(" FX bnd x" + var + " " + format(lb) + "\n");
+			else {
+				if (lb == Double.NEGATIVE_INFINITY)
+					writer.write(" MI bnd x" + var + "\n");
+				else if (lb != 0)
+					writer.write(" LO bnd x" + var + " " + format(lb) + "\n");
+
+				if (ub != Double.POSITIVE_INFINITY)
+					writer.write(" UP bnd x" + var + " " + format(ub) + "\n");
+				else if (model.getType(var) != Model.Type.CONTINUOUS) // some readers bound integers by 1
+					writer.write(" PL bnd x" + var + "\n");
+			}
+		}
+
+		writer.write("ENDATA\n");
+	}
+
+	/* Integral values without decimals, to keep files small. */
+	static String format(double d) {
+		if (d == Double.POSITIVE_INFINITY)
+			return "+infinity";
+		if (d == Double.NEGATIVE_INFINITY)
+			return "-infinity";
+		if (d == Math.rint(d) && Math.abs(d) < 1e15)
+			return Long.toString((long) d);
+		return Double.toString(d);
+	}
+
+}
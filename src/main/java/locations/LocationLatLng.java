@@ -39,6 +39,18 @@ public class LocationLatLng extends Location {
 		return -1;
 	}
 
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		return o instanceof LocationLatLng && location.equals(((LocationLatLng) o).location) && lengthUnit == ((LocationLatLng) o).lengthUnit;
+	}
+
+	@Override
+	public int hashCode() {
+		return location.hashCode();
+	}
+
 	@Override
 	public String toString() {
 		return String.format("LatLng(%f, %f)", location.getLatitude(), location.getLongitude());
@@ -33,6 +33,18 @@ public class LocationManhattan extends Location {
 		return -1;
 	}
 
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		return o instanceof LocationManhattan && x == ((LocationManhattan) o).x && y == ((LocationManhattan) o).y;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * x + y;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("Manhattan(%d, %d)", x, y);
@@ -31,6 +31,18 @@ public class LocationPoint extends Location {
 		return -1;
 	}
 
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		return o instanceof LocationPoint && location.equals(((LocationPoint) o).location);
+	}
+
+	@Override
+	public int hashCode() {
+		return location.hashCode();
+	}
+
 	@Override
 	public String toString() {
 		return String.format("Point(%d, %d)", location.x, location.y);
@@ -77,6 +77,21 @@ public class Agent implements Serializable {
 		location = initialLocation;
 	}
 
+	/* A copy of agent, with the same target task. */
+	public Agent(Agent agent) {
+		id = agent.id;
+		idStr = agent.idStr;
+		speed = agent.speed;
+
+		initialLocation = agent.initialLocation;
+		location = agent.location;
+		status = agent.status;
+		target = agent.target;
+		targetLocation = agent.targetLocation;
+		arrivalTime = agent.arrivalTime;
+		endTime = agent.endTime;
+	}
+
 	public int getTravelTime(Location departure, Location destination) {
 		return departure.getTravelTimeTo(destination, speed);
 	}
@@ -0,0 +1,103 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import locations.Location;
+
+/**
+ * A group of interchangeable agents, that is, agents with the same location,
+ * speed and availability.
+ *
+ * Solvers can reason over types and their sizes instead of individual agents,
+ * and map back to concrete agents only when defining a solution.
+ *
+ * @author lcpz
+ */
+public class AgentType {
+
+	public final int id;
+
+	/* The agents of this type, in the same order of the array they come from. */
+	public final Agent[] agents;
+
+	public final Location location;
+
+	public final float speed;
+
+	/* Last time in which the agents of this type were working on a task. */
+	public final int endTime;
+
+	public AgentType(int id, Agent[] agents) {
+		try {
+			if (agents == null || agents.length == 0)
+				throw new Exception(String.format("agent type %d has no agents", id));
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+		this.id = id;
+		this.agents = agents;
+		location = agents[0].location;
+		speed = agents[0].speed;
+		endTime = agents[0].endTime;
+	}
+
+	public int size() {
+		return agents.length;
+	}
+
+	public int getTravelTimeTo(Location destination) {
+		return location.getTravelTimeTo(destination, speed);
+	}
+
+	public int getTravelTime(Location departure, Location destination) {
+		return departure.getTravelTimeTo(destination, speed);
+	}
+
+	/**
+	 * Group agents by current location, speed and end time.
+	 *
+	 * Types are sorted by the index of their first agent in <code>agents</code>.
+	 *
+	 * @param agents An array of agents.
+	 * @return The agent types.
+	 */
+	public static AgentType[] partition(Agent[] agents) {
+		Map<List<Object>, List<Agent>> m = new LinkedHashMap<>();
+
+		for (Agent a : agents)
+			m.computeIfAbsent(Arrays.asList(a.location, a.speed, a.endTime), k -> new ArrayList<>()).add(a);
+
+		AgentType[] types = new AgentType[m.size()];
+		int i = 0;
+		for (List<Agent> l : m.values()) {
+			types[i] = new AgentType(i, l.toArray(new Agent[0]));
+			i++;
+		}
+
+		return types;
+	}
+
+	/**
+	 * One type per agent, for problems where agents are not interchangeable.
+	 *
+	 * @param agents An array of agents.
+	 * @return The agent types.
+	 */
+	public static AgentType[] singletons(Agent[] agents) {
+		AgentType[] types = new AgentType[agents.length];
+		for (int i = 0; i < agents.length; i++)
+			types[i] = new AgentType(i, new Agent[] { agents[i] });
+		return types;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d x %s", agents.length, Arrays.toString(agents));
+	}
+
+}
@@ -1,9 +1,9 @@
 package model;
 
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.Map;
-
-import org.apache.commons.lang3.SerializationUtils;
+import java.util.concurrent.ThreadLocalRandom;
 
 import locations.Location;
 import toolkit.Utils;
@@ -13,7 +13,7 @@ import toolkit.Utils;
  *
  * @author lcpz
  */
-public abstract class MARSC implements Serializable {
+public abstract class MARSC implements Serializable, Cloneable {
 
 	private static final long serialVersionUID = 1L;
 
@@ -28,7 +28,25 @@ public abstract class MARSC implements Serializable {
 
 	protected String stringRepresentation;
 
+	/*
+	 * Precomputed values of a characteristic function that only depends on
+	 * coalition size, that is, sizeValues[k-1] is the value of any coalition of
+	 * k agents, on any task and at any location. Null if the characteristic
+	 * function is not size-only.
+	 */
+	protected float[] sizeValues;
+
+	/* Lazily computed from sizeValues, see isSuperadditive(). */
+	private Boolean superadditive;
+
+	/* The seed from which random coalition values are drawn. */
+	protected final long seed;
+
 	public MARSC(Task[] tasks, Map<Task, Task> order, Agent[] agents) {
+		this(tasks, order, agents, ThreadLocalRandom.current().nextLong());
+	}
+
+	public MARSC(Task[] tasks, Map<Task, Task> order, Agent[] agents, long seed) {
 		try {
 			if (tasks == null || tasks.length == 0)
 				throw new Exception("invalid task array");
@@ -60,6 +78,8 @@ public abstract class MARSC implements Serializable {
 			if (v.demand.timeWindow.hardLatestTime > dmax)
 				dmax = v.demand.timeWindow.hardLatestTime;
 		maximumProblemCompletionTime = dmax;
+
+		this.seed = seed;
 	}
 
 	public Task[] getTasks() {
@@ -70,6 +90,10 @@ public abstract class MARSC implements Serializable {
 		return order;
 	}
 
+	public long getSeed() {
+		return seed;
+	}
+
 	public Agent[] getAgents() {
 		return agents;
 	}
@@ -92,10 +116,127 @@ public abstract class MARSC implements Serializable {
 	}
 
 	/**
-	 * Return a deep copy of this problem instance.
+	 * The value of any coalition of <code>coalitionSize</code> agents, if the
+	 * characteristic function is size-only.
+	 *
+	 * @param coalitionSize A number between 1 and the number of agents.
+	 * @return The precomputed coalition value.
+	 */
+	public float getValue(int coalitionSize) {
+		return sizeValues[coalitionSize - 1];
+	}
+
+	/**
+	 * Return the precomputed coalition values indexed by coalition size minus
+	 * one, or null if the characteristic function is not size-only.
+	 *
+	 * The returned array must not be modified.
+	 */
+	public float[] getSizeValues() {
+		return sizeValues;
+	}
+
+	/**
+	 * Whether the characteristic function only depends on coalition size.
+	 */
+	public boolean isSizeOnly() {
+		return sizeValues != null;
+	}
+
+	/**
+	 * Whether the characteristic function does not depend on the task.
+	 */
+	public boolean isTaskIndependent() {
+		return isSizeOnly();
+	}
+
+	/**
+	 * Whether the characteristic function does not depend on the task location.
+	 */
+	public boolean isLocationIndependent() {
+		return isSizeOnly();
+	}
+
+	/**
+	 * Whether the value of the union of two disjoint coalitions is never less
+	 * than the sum of their values.
+	 *
+	 * Size-only characteristic functions are checked on their precomputed table,
+	 * all the others are assumed not to be superadditive.
 	 */
+	public boolean isSuperadditive() {
+		if (superadditive == null) {
+			boolean b = sizeValues != null;
+			for (int i = 1; b && i <= sizeValues.length; i++)
+				for (int j = 1; b && i + j <= sizeValues.length; j++)
+					if (sizeValues[i + j - 1] < sizeValues[i - 1] + sizeValues[j - 1])
+						b = false;
+			superadditive = b;
+		}
+
+		return superadditive;
+	}
+
+	/**
+	 * Return a copy of this problem instance with its own tasks, agents and
+	 * memoised coalition values, and sharing the parts that never change (e.g.,
+	 * demands, locations and precomputed values) with this instance.
+	 *
+	 * Unlike {@link #copy()}, solving the clone does not change this instance,
+	 * hence several clones are solved from the same state.
+	 */
+	@Override
 	public MARSC clone() {
-		return (MARSC) SerializationUtils.clone(this);
+		MARSC clone = copy();
+		if (clone != null)
+			clone.copyCoalitionValues();
+		return clone;
+	}
+
+	/* Replace the memoised coalition values, if any, with a copy of them. */
+	protected void copyCoalitionValues() {
+	}
+
+	/**
+	 * Return a copy of this problem instance with its own tasks and agents, and
+	 * sharing everything else (e.g., demands, locations and precomputed values)
+	 * with this instance.
+	 *
+	 * Solvers only change the status of tasks and agents, hence copies can be
+	 * solved concurrently.
+	 */
+	public MARSC copy() {
+		MARSC copy;
+
+		try {
+			copy = (MARSC) super.clone();
+		} catch (CloneNotSupportedException e) {
+			e.printStackTrace();
+			return null;
+		}
+
+		Map<Task, Task> m = new HashMap<>();
+
+		copy.tasks = new Task[tasks.length];
+		for (int i = 0; i < tasks.length; i++) {
+			copy.tasks[i] = new Task(tasks[i]);
+			m.put(tasks[i], copy.tasks[i]);
+		}
+
+		if (order != null) {
+			copy.order = new HashMap<>();
+			for (Map.Entry<Task, Task> entry : order.entrySet())
+				copy.order.put(m.get(entry.getKey()), m.get(entry.getValue()));
+		}
+
+		copy.agents = new Agent[agents.length];
+		for (int i = 0; i < agents.length; i++) {
+			copy.agents[i] = new Agent(agents[i]);
+			if (agents[i].target != null)
+				copy.agents[i].target = m.get(agents[i].target);
+		}
+
+		return copy;
 	}
 
 	@Override
@@ -1,10 +1,6 @@
 package model;
 
 import java.io.Serializable;
-import java.util.Map;
-import java.util.Set;
-
-import locations.Location;
 
 /**
  * A basic task.
@@ -30,12 +26,6 @@ public class Task implements Serializable {
 	/* Current task status. */
 	public Status status = Status.UNCOMPLETED;
 
-	/*
-	 * At each possible location, defines which agents this task can be currently assigned to.
-	 * This structure is only used by CTS algorithms.
-	 */
-	public Map<Location, Set<Agent>> allocableMap;
-
 	public Task(int id, Demand demand) {
 		try {
 			if (demand == null)
@@ -49,6 +39,14 @@ public class Task implements Serializable {
 		this.demand = demand;
 	}
 
+	/* A copy of task, sharing its demand. */
+	public Task(Task task) {
+		id = task.id;
+		idStr = task.idStr;
+		demand = task.demand;
+		status = task.status;
+	}
+
 	@Override
 	public String toString() {
 		return idStr;
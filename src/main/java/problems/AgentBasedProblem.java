@@ -3,14 +3,15 @@ package problems;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
 
-import org.apache.commons.math3.distribution.UniformRealDistribution;
-
 import locations.Location;
 import model.Agent;
 import model.MARSC;
 import model.Task;
+import toolkit.Utils;
 
 public class AgentBasedProblem extends MARSC {
 
@@ -22,28 +23,68 @@ public class AgentBasedProblem extends MARSC {
 	public final boolean urgent, congested;
 
 	public AgentBasedProblem(Task[] tasks, Map<Task, Task> order, Agent[] agents, boolean urgent, boolean congested) {
-		super(tasks, order, agents);
+		this(tasks, order, agents, urgent, congested, ThreadLocalRandom.current().nextLong());
+	}
+
+	public AgentBasedProblem(Task[] tasks, Map<Task, Task> order, Agent[] agents, boolean urgent, boolean congested, long seed) {
+		super(tasks, order, agents, seed);
 		this.urgent = urgent;
 		this.congested = congested;
 
 		agentPerformance = new HashMap<>();
 
 		// pre-computing
-		UniformRealDistribution d = new UniformRealDistribution(0, 10);
+		SplittableRandom rnd = new SplittableRandom(seed);
 		for (Agent a : agents)
-			agentPerformance.put(a.id, (float) Math.abs(new UniformRealDistribution(0, 2 * Math.abs(d.sample())).sample()));
+			agentPerformance.put(a.id, (float) Utils.uniform(rnd, 0, 2 * Utils.uniform(rnd, 0, 10)));
+
+		coalitionValueMap = new ConcurrentHashMap<>(); // shared by problem copies
+	}
+
+	@Override
+	protected void copyCoalitionValues() {
+		coalitionValueMap = new ConcurrentHashMap<>(coalitionValueMap);
+	}
+
+	/* Without urgency and congestion, the value of a coalition is the sum of the performances of its agents. */
+
+	@Override
+	public boolean isTaskIndependent() {
+		return !urgent && !congested;
+	}
 
-		coalitionValueMap = new HashMap<>();
+	@Override
+	public boolean isLocationIndependent() {
+		return !urgent && !congested;
+	}
+
+	@Override
+	public boolean isSuperadditive() {
+		return !urgent && !congested; // performances are non-negative
+	}
+
+	/* The key of a memoised coalition value. */
+	protected String getKey(Task task, Agent[] coalition) {
+		return String.format("%d%s", task.id, Arrays.toString(coalition));
 	}
 
 	@Override
 	public float getValue(Task task, Location location, Agent[] coalition) {
-		String s = String.format("%d%s", task.id, Arrays.toString(coalition));
-		Float fmap = coalitionValueMap.get(String.format("%d%s", task.id, Arrays.toString(coalition)));
+		String s = getKey(task, coalition);
+		Float fmap = coalitionValueMap.get(s);
 
 		if (fmap != null)
 			return fmap;
 
+		float f = computeValue(task, location, coalition, s);
+
+		fmap = coalitionValueMap.putIfAbsent(s, f);
+
+		return fmap != null ? fmap : f;
+	}
+
+	/* The value of a coalition, without memoisation. s is its key. */
+	protected float computeValue(Task task, Location location, Agent[] coalition, String s) {
 		float f = 0f;
 
 		for (Agent a : coalition)
@@ -51,27 +92,28 @@ public class AgentBasedProblem extends MARSC {
 
 		if (urgent || congested) {
 			int probability;
-			UniformRealDistribution r = new UniformRealDistribution(f/10, f/5);
+			float lower = f/10, upper = f/5;
+
+			// drawn from the input, hence the same whichever solver (or thread) computes it first
+			SplittableRandom rnd = new SplittableRandom(31 * seed + s.hashCode());
 
 			if (urgent) {
 				probability = (int) Math.ceil(task.demand.timeWindow.hardLatestTime / (double) (maximumProblemCompletionTime + 1)) * 100;
-				if (ThreadLocalRandom.current().nextInt(101) <= probability)
-					f -= r.sample();
+				if (rnd.nextInt(101) <= probability)
+					f -= Utils.uniform(rnd, lower, upper);
 
 				probability = (int) Math.ceil(coalition[coalition.length-1].getTravelTimeTo(location) / (double) (maximumProblemCompletionTime + 1)) * 100;
-				if (ThreadLocalRandom.current().nextInt(101) <= probability)
-					f -= r.sample();
+				if (rnd.nextInt(101) <= probability)
+					f -= Utils.uniform(rnd, lower, upper);
 			}
 
 			if (congested) {
 				probability = (int) Math.ceil(coalition.length / (double) (agents.length + 1)) * 100;
-				if (ThreadLocalRandom.current().nextInt(101) <= probability)
-					f -= r.sample();
+				if (rnd.nextInt(101) <= probability)
+					f -= Utils.uniform(rnd, lower, upper);
 			}
 		}
 
-		coalitionValueMap.put(s, f);
-
 		return f;
 	}
 
@@ -1,13 +1,14 @@
 package problems;
 
 import java.util.Map;
-
-import org.apache.commons.math3.distribution.UniformRealDistribution;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 import locations.Location;
 import model.Agent;
 import model.MARSC;
 import model.Task;
+import toolkit.Utils;
 
 public class LinearPerturbedProblem extends MARSC {
 
@@ -15,30 +16,30 @@ public class LinearPerturbedProblem extends MARSC {
 
 	public final boolean perturbed;
 
-	/* Taken from Ramchurn's 2010 CFSTP paper. */
-	protected UniformRealDistribution unif = new UniformRealDistribution(1, 2);
-
 	float[] cValues;
 
 	public LinearPerturbedProblem(Task[] tasks, Map<Task, Task> order, Agent[] agents, boolean perturbed) {
-		super(tasks, order, agents);
+		this(tasks, order, agents, perturbed, ThreadLocalRandom.current().nextLong());
+	}
+
+	public LinearPerturbedProblem(Task[] tasks, Map<Task, Task> order, Agent[] agents, boolean perturbed, long seed) {
+		super(tasks, order, agents, seed);
 		this.perturbed = perturbed;
-		if (perturbed) {
-			cValues = new float[agents.length];
-			for (int i = 0; i < agents.length; i++)
-				cValues[i] = (float) ((i+1) * Math.abs(unif.sample()));
-		}
+		SplittableRandom rnd = new SplittableRandom(seed);
+		cValues = new float[agents.length];
+		for (int i = 0; i < agents.length; i++)
+			if (perturbed)
+				cValues[i] = (float) ((i+1) * Utils.uniform(rnd, 1, 2)); // taken from Ramchurn's 2010 CFSTP paper
+			else
+				cValues[i] = i + 1;
+		sizeValues = cValues;
 	}
 
 	@Override
 	public float getValue(Task task, Location location, Agent[] coalition) {
-		if (!perturbed) // superadditive
-			return (float) coalition.length;
-		else {
-			int i = coalition.length - 1;
-			if (i < 0) i = 0;
-			return cValues[i];
-		}
+		int i = coalition.length - 1;
+		if (i < 0) i = 0;
+		return cValues[i]; // i + 1 if not perturbed (superadditive)
 	}
 
 }
\ No newline at end of file
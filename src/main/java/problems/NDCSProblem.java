@@ -1,17 +1,16 @@
 package problems;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
 
-import org.apache.commons.math3.distribution.NormalDistribution;
-import org.apache.commons.math3.distribution.UniformRealDistribution;
-
 import locations.Location;
 import model.Agent;
 import model.MARSC;
 import model.Task;
+import toolkit.Utils;
 
 public class NDCSProblem extends MARSC {
 
@@ -24,52 +23,84 @@ public class NDCSProblem extends MARSC {
 	protected Map<String, Float> coalitionValueMap;
 
 	public NDCSProblem(Task[] tasks, Map<Task, Task> order, Agent[] agents, boolean urgent, boolean congested) {
-		super(tasks, order, agents);
+		this(tasks, order, agents, urgent, congested, ThreadLocalRandom.current().nextLong());
+	}
+
+	public NDCSProblem(Task[] tasks, Map<Task, Task> order, Agent[] agents, boolean urgent, boolean congested, long seed) {
+		super(tasks, order, agents, seed);
 
 		this.urgent = urgent;
 		this.congested = congested;
 
 		// pre-computing
+		SplittableRandom rnd = new SplittableRandom(seed);
 		preValues = new float[agents.length];
 		for (int i = 0; i < agents.length; i++)
-			preValues[i] = (float) Math.abs(new NormalDistribution(i+1, Math.pow(i+1, 0.25)).sample());
+			preValues[i] = (float) Math.abs(Utils.gaussian(rnd, i+1, Math.pow(i+1, 0.25)));
+
+		// without urgency and congestion, values only depend on coalition size
+		if (!urgent && !congested)
+			sizeValues = preValues;
+
+		coalitionValueMap = new ConcurrentHashMap<>(); // shared by problem copies
+	}
+
+	@Override
+	protected void copyCoalitionValues() {
+		coalitionValueMap = new ConcurrentHashMap<>(coalitionValueMap);
+	}
 
-		coalitionValueMap = new HashMap<>();
+	/* The key of a memoised coalition value. */
+	protected String getKey(Task task, Agent[] coalition) {
+		return String.format("%d%s", task.id, Arrays.toString(coalition));
 	}
 
 	@Override
 	public float getValue(Task task, Location location, Agent[] coalition) {
-		String s = String.format("%d%s", task.id, Arrays.toString(coalition));
-		Float fmap = coalitionValueMap.get(String.format("%d%s", task.id, Arrays.toString(coalition)));
+		if (sizeValues != null)
+			return sizeValues[coalition.length-1];
+
+		String s = getKey(task, coalition);
+		Float fmap = coalitionValueMap.get(s);
 
 		if (fmap != null)
 			return fmap;
 
+		float f = computeValue(task, location, coalition, s);
+
+		fmap = coalitionValueMap.putIfAbsent(s, f);
+
+		return fmap != null ? fmap : f;
+	}
+
+	/* The value of a coalition, without memoisation. s is its key. */
+	protected float computeValue(Task task, Location location, Agent[] coalition, String s) {
 		float f = preValues[coalition.length-1];
 
 		if (urgent || congested) {
 			int probability;
-			UniformRealDistribution r = new UniformRealDistribution(f/10, f/5);
+			float lower = f/10, upper = f/5;
+
+			// drawn from the input, hence the same whichever solver (or thread) computes it first
+			SplittableRandom rnd = new SplittableRandom(31 * seed + s.hashCode());
 
 			if (urgent) {
 				probability = (int) Math.ceil(task.demand.timeWindow.hardLatestTime / (double) (maximumProblemCompletionTime + 1)) * 100;
-				if (ThreadLocalRandom.current().nextInt(101) <= probability)
-					f -= r.sample();
+				if (rnd.nextInt(101) <= probability)
+					f -= Utils.uniform(rnd, lower, upper);
 
 				probability = (int) Math.ceil(coalition[coalition.length-1].getTravelTimeTo(location) / (double) (maximumProblemCompletionTime + 1)) * 100;
-				if (ThreadLocalRandom.current().nextInt(101) <= probability)
-					f -= r.sample();
+				if (rnd.nextInt(101) <= probability)
+					f -= Utils.uniform(rnd, lower, upper);
 			}
 
 			if (congested) {
 				probability = (int) Math.ceil(coalition.length / (double) (agents.length + 1)) * 100;
-				if (ThreadLocalRandom.current().nextInt(101) <= probability)
-					f -= r.sample();
+				if (rnd.nextInt(101) <= probability)
+					f -= Utils.uniform(rnd, lower, upper);
 			}
 		}
 
-		coalitionValueMap.put(s, f);
-
 		return f;
 	}
 
@@ -1,15 +1,14 @@
 package problems;
 
 import java.util.Map;
+import java.util.SplittableRandom;
 import java.util.concurrent.ThreadLocalRandom;
 
-import org.apache.commons.math3.distribution.NormalDistribution;
-import org.apache.commons.math3.distribution.UniformRealDistribution;
-
 import locations.Location;
 import model.Agent;
 import model.MARSC;
 import model.Task;
+import toolkit.Utils;
 
 public class NormalProblem extends MARSC {
 
@@ -17,21 +16,26 @@ public class NormalProblem extends MARSC {
 
 	protected boolean modified;
 
-	protected UniformRealDistribution unif = new UniformRealDistribution(0, 50);
-
 	protected float[] coalitionValues;
 
 	public NormalProblem(Task[] tasks, Map<Task, Task> order, Agent[] agents, boolean modified) {
-		super(tasks, order, agents);
+		this(tasks, order, agents, modified, ThreadLocalRandom.current().nextLong());
+	}
+
+	public NormalProblem(Task[] tasks, Map<Task, Task> order, Agent[] agents, boolean modified, long seed) {
+		super(tasks, order, agents, seed);
 		this.modified = modified;
 
+		SplittableRandom rnd = new SplittableRandom(seed);
 		coalitionValues = new float[agents.length];
 
 		for (int i = 0; i < agents.length; i++) {
-			coalitionValues[i] = (float) new NormalDistribution(10 * (i+1), 0.1).sample();
-			if (modified && ThreadLocalRandom.current().nextInt(5) == 0) // modified and probability 0.2
-				coalitionValues[i] += (float) Math.abs(unif.sample());
+			coalitionValues[i] = (float) Utils.gaussian(rnd, 10 * (i+1), 0.1);
+			if (modified && rnd.nextInt(5) == 0) // modified and probability 0.2
+				coalitionValues[i] += (float) Utils.uniform(rnd, 0, 50);
 		}
+
+		sizeValues = coalitionValues;
 	}
 
 	@Override
@@ -1,6 +1,8 @@
 package problems;
 
 import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 import model.Agent;
 import model.MARSC;
@@ -14,38 +16,83 @@ import model.Task;
 public class Problem {
 
 	public static MARSC getInstance(String type, Task[] tasks, Map<Task, Task> order, Agent[] agents) {
+		return getInstance(type, tasks, order, agents, ThreadLocalRandom.current().nextLong());
+	}
+
+	/**
+	 * The seed of the coalition values of a <code>type</code> instance generated
+	 * from <code>seed</code>, so that instances of different classes generated
+	 * from the same seed only differ in their coalition values.
+	 */
+	public static long getValueSeed(String type, long seed) {
+		return new SplittableRandom(31 * seed + type.hashCode()).nextLong();
+	}
+
+	/**
+	 * @param seed The seed from which the coalition values are drawn.
+	 */
+	public static MARSC getInstance(String type, Task[] tasks, Map<Task, Task> order, Agent[] agents, long seed) {
 		switch (type) {
 		case "SUPERADDITIVE":
-			return new LinearPerturbedProblem(tasks, order, agents, false);
+			return new LinearPerturbedProblem(tasks, order, agents, false, seed);
 		case "LINEAR_PERTURBED":
-			return new LinearPerturbedProblem(tasks, order, agents, true);
+			return new LinearPerturbedProblem(tasks, order, agents, true, seed);
 		case "UNIFORM":
-			return new UniformProblem(tasks, order, agents, false);
+			return new UniformProblem(tasks, order, agents, false, seed);
 		case "NORMAL":
-			return new NormalProblem(tasks, order, agents, false);
+			return new NormalProblem(tasks, order, agents, false, seed);
 		case "MODIFIED_UNIFORM":
-			return new UniformProblem(tasks, order, agents, true);
+			return new UniformProblem(tasks, order, agents, true, seed);
 		case "MODIFIED_NORMAL":
-			return new NormalProblem(tasks, order, agents, true);
+			return new NormalProblem(tasks, order, agents, true, seed);
 		case "AGENT_BASED":
-			return new AgentBasedProblem(tasks, order, agents, false, false);
+			return new AgentBasedProblem(tasks, order, agents, false, false, seed);
 		case "U_AGENT_BASED":
-			return new AgentBasedProblem(tasks, order, agents, true, false);
+			return new AgentBasedProblem(tasks, order, agents, true, false, seed);
 		case "C_AGENT_BASED":
-			return new AgentBasedProblem(tasks, order, agents, false, true);
+			return new AgentBasedProblem(tasks, order, agents, false, true, seed);
 		case "UC_AGENT_BASED":
-			return new AgentBasedProblem(tasks, order, agents, true, true);
+			return new AgentBasedProblem(tasks, order, agents, true, true, seed);
 		case "NDCS":
-			return new NDCSProblem(tasks, order, agents, false, false);
+			return new NDCSProblem(tasks, order, agents, false, false, seed);
 		case "U_NDCS":
-			return new NDCSProblem(tasks, order, agents, true, false);
+			return new NDCSProblem(tasks, order, agents, true, false, seed);
 		case "C_NDCS":
-			return new NDCSProblem(tasks, order, agents, false, true);
+			return new NDCSProblem(tasks, order, agents, false, true, seed);
 		case "UC_NDCS":
-			return new NDCSProblem(tasks, order, agents, true, true);
+			return new NDCSProblem(tasks, order, agents, true, true, seed);
 		default:
 			return null;
 		}
 	}
 
-}
\ No newline at end of file
+	/**
+	 * @return The type of <code>problem</code>, as accepted by
+	 *         {@link #getInstance(String, Task[], Map, Agent[], long)}.
+	 */
+	public static String getType(MARSC problem) {
+		if (problem instanceof LinearPerturbedProblem)
+			return ((LinearPerturbedProblem) problem).perturbed ? "LINEAR_PERTURBED" : "SUPERADDITIVE";
+		if (problem instanceof UniformProblem)
+			return ((UniformProblem) problem).modified ? "MODIFIED_UNIFORM" : "UNIFORM";
+		if (problem instanceof NormalProblem)
+			return ((NormalProblem) problem).modified ? "MODIFIED_NORMAL" : "NORMAL";
+
+		String prefix = "";
+		boolean urgent = false, congested = false;
+		if (problem instanceof AgentBasedProblem) {
+			urgent = ((AgentBasedProblem) problem).urgent;
+			congested = ((AgentBasedProblem) problem).congested;
+		} else if (problem instanceof NDCSProblem) {
+			urgent = ((NDCSProblem) problem).urgent;
+			congested = ((NDCSProblem) problem).congested;
+		} else
+			return null;
+
+		if (urgent || congested)
+			prefix = (urgent ? "U" : "") + (congested ? "C" : "") + "_";
+
+		return prefix + (problem instanceof AgentBasedProblem ? "AGENT_BASED" : "NDCS");
+	}
+
+}
@@ -1,14 +1,14 @@
 package problems;
 
 import java.util.Map;
+import java.util.SplittableRandom;
 import java.util.concurrent.ThreadLocalRandom;
 
-import org.apache.commons.math3.distribution.UniformRealDistribution;
-
 import locations.Location;
 import model.Agent;
 import model.MARSC;
 import model.Task;
+import toolkit.Utils;
 
 public class UniformProblem extends MARSC {
 
@@ -16,24 +16,29 @@ public class UniformProblem extends MARSC {
 
 	protected boolean modified;
 
-	protected UniformRealDistribution unif = new UniformRealDistribution(0, 50);
-
 	protected float[] coalitionValues;
 
 	public UniformProblem(Task[] tasks, Map<Task, Task> order, Agent[] agents, boolean modified) {
-		super(tasks, order, agents);
+		this(tasks, order, agents, modified, ThreadLocalRandom.current().nextLong());
+	}
+
+	public UniformProblem(Task[] tasks, Map<Task, Task> order, Agent[] agents, boolean modified, long seed) {
+		super(tasks, order, agents, seed);
 		this.modified = modified;
 
+		SplittableRandom rnd = new SplittableRandom(seed);
 		coalitionValues = new float[agents.length];
 
 		for (int i = 0; i < agents.length; i++) {
 			if (modified) {
-				coalitionValues[i] = (float) Math.abs(new UniformRealDistribution(0, 10 * (i+1)).sample());
-				if (ThreadLocalRandom.current().nextInt(5) == 0) // probability 0.2
-					coalitionValues[i] += (float) Math.abs(unif.sample());
+				coalitionValues[i] = (float) Utils.uniform(rnd, 0, 10 * (i+1));
+				if (rnd.nextInt(5) == 0) // probability 0.2
+					coalitionValues[i] += (float) Utils.uniform(rnd, 0, 50);
 			} else
-				coalitionValues[i] = (float) Math.abs(new UniformRealDistribution(0, i+1).sample());
+				coalitionValues[i] = (float) Utils.uniform(rnd, 0, i+1);
 		}
+
+		sizeValues = coalitionValues;
 	}
 
 	@Override
@@ -212,7 +212,8 @@ public class ANT extends BNT {
         executor.shutdownNow();
     }
 
-    private boolean satisfiesOrder(int[] a) {
+    /* Whether the task permutation a satisfies the task ordering (package-private for SolverBenchmark). */
+    boolean satisfiesOrder(int[] a) {
         if (order == null || order.size() == 0)
             return true;
 
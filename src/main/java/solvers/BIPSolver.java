@@ -0,0 +1,1125 @@
+package solvers;
+
+import bip.Model;
+import bip.ModelWriter;
+import com.google.common.base.Stopwatch;
+import locations.Location;
+import model.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reducing the MARSC to a Binary Integer Program (BIP), independently from the
+ * solver used.
+ *
+ * The BIP is built as a {@link Model}, that subclasses translate for their
+ * solver, and that can be written to a file with {@link ModelWriter}.
+ *
+ * @author lcpz
+ */
+public abstract class BIPSolver extends Solver {
+
+	public enum Formulation {
+		COALITION, // one variable per task, location, coalition and time: exponential in the number of agents
+		AGENT,     // one variable per agent type, task, location and time, plus coalition size classes: polynomial
+		COLUMN_GENERATION // coalition-indexed, with the coalition allocations generated on demand (only CPLEX)
+	}
+
+	protected Formulation formulation = Formulation.COALITION;
+
+	/* The BIP, once created. */
+	protected Model model;
+
+	/* Time taken by each stage of the formulation, in order (ms), and in total (ms). */
+	protected final Map<String, Long> formulationStageTimes = new LinkedHashMap<>();
+	protected final Stopwatch stageStopwatch = Stopwatch.createUnstarted();
+	protected long formulationTime = -1;
+
+	/*
+	 * Coalition Allocation binary variables, stored sparsely: only the variables
+	 * created are in caVars, as indexes of the model, and their indexes are in
+	 * the parallel arrays
+	 *
+	 * 1. caTasks (task)
+	 * 2. caLocations (location)
+	 * 3. caCoalitions (coalition, expressed as a number between 1 and the number of coalitions)
+	 * 4. caTimes (time)
+	 *
+	 * The variables of a task, location and coalition are contiguous and sorted
+	 * by time, from caOffsets[h][i][j] (-1 if none) and time slot
+	 * caStartSlots[h][i][j] to the last time slot of the task.
+	 */
+	protected int[] caVars;
+	protected int[] caTasks, caLocations, caCoalitions, caTimes;
+	protected int caVarsNr;
+	protected int[][][] caOffsets, caStartSlots;
+
+	/*
+	 * Time slots of the coalition-indexed formulation. Slot s of tasks[h] starts
+	 * at time slotTimes[h][s] (relative to the earliest time of the task) and
+	 * lasts slotLengths[h][s] time units, and slots[h][k] is the slot starting
+	 * at time k (-1 if none). By default, there is one slot per time unit.
+	 *
+	 * With timeBucket > 1, the formulation is first solved with one slot per
+	 * bucket of timeBucket time units, and then with one slot per time unit
+	 * only around the buckets chosen (see setTimeSlots).
+	 */
+	protected int[][] slotTimes, slotLengths, slots;
+	protected int timeBucket = 1;
+
+	/* Maximum solving time (ms), shared by the coarse and refined solves with time buckets: 1 hour by default. */
+	protected long timeLimit = 3600000;
+
+	/*
+	 * In a solution, the coalition allocations related to a task must all have the same location.
+	 * This is expressed with binary variables: locVars[h] + i is the variable of
+	 * task h and location i.
+	 */
+	protected int[] locVars;
+
+	/* A feasible solution, e.g. found by a heuristic, from which the solver starts. */
+	protected Solution warmStart;
+
+	/*
+	 * If true, the travel rows of spatial constraints (2) of the
+	 * coalition-indexed formulation are not added to the model, but added by the
+	 * solver when an integer solution violates them. taskPairs holds the pairs
+	 * of tasks they apply to (see getTaskPairs).
+	 */
+	protected boolean lazySpatialConstraints;
+	protected final List<int[]> taskPairs = new ArrayList<>();
+
+	/*
+	 * Agent-indexed formulation, only available for size-only problems.
+	 *
+	 * The indexes of agentVars are agent type, task, location and time, and each
+	 * variable (-1 if none) is the number of agents of that type working on the
+	 * task. The indexes of sizeVars are task, location, time and coalition size
+	 * minus 1, and each binary variable is 1 if a coalition of that size works
+	 * on the task.
+	 */
+	protected int[][][][] agentVars;
+	protected int[][][][] sizeVars;
+
+	/*
+	 * Groups of interchangeable agents. A coalition is defined by how many
+	 * agents of each type it contains, and its number is the mixed-radix
+	 * representation of these counts. With one agent per type, there are 2^|A|
+	 * coalitions.
+	 */
+	protected final AgentType[] agentTypes;
+
+	/* Coalition number -> agents of each type, and the first agents of each type. */
+	private final Map<Integer, int[]> typeCountMap;
+	private final Map<Integer, Agent[]> caMap;
+
+	/* Coalition values by coalition index, only used if they are task and location independent. */
+	private final Map<Integer, Float> caValueMap;
+
+	public final int coalitionsNr;
+
+	public BIPSolver(MARSC problem) {
+		super(problem);
+
+		/* Agents are only interchangeable if coalition values do not depend on their identities. */
+		agentTypes = problem.isSizeOnly() ? AgentType.partition(agents) : AgentType.singletons(agents);
+
+		double n = 1;
+		for (AgentType type : agentTypes)
+			n *= type.size() + 1;
+		coalitionsNr = (int) Math.min(n, Integer.MAX_VALUE);
+
+		typeCountMap = new HashMap<>();
+		caMap = new HashMap<>();
+		caValueMap = new HashMap<>();
+	}
+
+	/**
+	 * @return <code>formulation</code>, or the coalition-indexed formulation if
+	 *         <code>formulation</code> cannot be used for the problem.
+	 */
+	protected Formulation checkFormulation(Formulation formulation) {
+		if (formulation == Formulation.AGENT && !problem.isSizeOnly()) {
+			System.err.println("The agent-indexed formulation requires size-only coalition values, using the coalition-indexed one");
+			return Formulation.COALITION;
+		}
+
+		return formulation;
+	}
+
+	/**
+	 * Creates a BIP of the input problem.
+	 *
+	 * @return The BIP, or null if the formulation has no solver-independent model.
+	 */
+	public Model createModel() {
+		if (formulation == Formulation.AGENT)
+			createAgentFormulation();
+		else if (formulation == Formulation.COALITION)
+			createCoalitionFormulation();
+		else
+			try {
+				throw new Exception(String.format("the %s formulation has no solver-independent model", formulation));
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+
+		return model;
+	}
+
+	/**
+	 * Write the BIP to <code>path</code> (see
+	 * {@link ModelWriter#write(Model, String)}). The BIP is created only if it
+	 * has not been already, e.g. by solving the problem.
+	 */
+	public void exportModel(String path) throws IOException {
+		if (model == null)
+			createModel();
+		if (model != null)
+			ModelWriter.write(model, path);
+	}
+
+	/**
+	 * Creates a BIP with a variable for each coalition allocation.
+	 */
+	protected void createCoalitionFormulation() {
+		model = new Model();
+
+		caVars = new int[1024];
+		caTasks = new int[caVars.length];
+		caLocations = new int[caVars.length];
+		caCoalitions = new int[caVars.length];
+		caTimes = new int[caVars.length];
+		caVarsNr = 0;
+		caOffsets = new int[tasks.length][][];
+		caStartSlots = new int[tasks.length][][];
+		taskPairs.clear();
+		if (slots == null)
+			setTimeSlots(1, null);
+
+		locVars = new int[tasks.length];
+
+		int h, i, j, k, n, first;
+		Location[] possibleLocations;
+		TimeWindow tw;
+		Model.Row workloadDone;
+		double objectiveCoef, workloadCoef;
+
+		Agent[] coalition;
+		int coalitionStartTime, startSlot, t;
+
+		for (h = 0; h < tasks.length; h++) { // task
+			possibleLocations = tasks[h].demand.possibleLocations;
+			tw = tasks[h].demand.timeWindow;
+			caOffsets[h] = new int[possibleLocations.length][coalitionsNr];
+			caStartSlots[h] = new int[possibleLocations.length][coalitionsNr];
+			locVars[h] = model.addBinaryVariables(possibleLocations.length);
+			workloadDone = new Model.Row();
+
+			for (i = 0; i < possibleLocations.length; i++) { // location
+				Arrays.fill(caOffsets[h][i], -1);
+
+				for (j = 1; j < coalitionsNr; j++) { // coalition
+					coalition = getCoalition(j);
+
+					if (coalition == null || coalition.length == 0)
+						continue;
+
+					/*
+					 * Spatial constraints (1).
+					 *
+					 * If exists an agent in this coalition that cannot
+					 * reach the task location within the time window,
+					 * then do not add the decision variable.
+					 */
+					coalitionStartTime = startingTimeFromInitialLocation(tasks[h], possibleLocations[i], coalition);
+					if (coalitionStartTime > -1) {
+						/* Ordering constraints: no variables before the first time of the task. */
+						coalitionStartTime = Math.max(coalitionStartTime, getFirstTime(h)) - tw.earliestTime;
+
+						for (startSlot = 0; startSlot < slotTimes[h].length && slotTimes[h][startSlot] < coalitionStartTime; startSlot++);
+
+						n = slotTimes[h].length - startSlot;
+						if (n <= 0)
+							continue;
+
+						first = model.addBinaryVariables(n); /* Binary (0-1) decision variables */
+
+						for (k = 0; k < n; k++) { // time slot
+							objectiveCoef = 0;
+							for (t = 0; t < slotLengths[h][startSlot + k]; t++)
+								objectiveCoef += tasks[h].demand.profit * (tw.earliestTime + slotTimes[h][startSlot + k] + t);
+							workloadCoef = slotLengths[h][startSlot + k] * getCoalitionValue(tasks[h], possibleLocations[i], coalition, j);
+
+							model.setObjectiveCoefficient(first + k, objectiveCoef);
+							workloadDone.add(first + k, workloadCoef);
+						}
+
+						addCAVars(first, n, h, i, j, startSlot);
+					}
+				}
+			}
+
+			/* Temporal constraints (1). */
+			model.addLe(new Model.Row().add(locVars[h], ones(possibleLocations.length)), 1);
+			model.addGe(workloadDone, tasks[h].demand.workload);
+		}
+
+		endFormulationStage("variables");
+
+		/*
+		 * Spatial constraints (2).
+		 *
+		 * If an agent can't work on two tasks consecutively,
+		 * then it can work on at most one between them.
+		 */
+		addCapacityCliqueConstraints();
+
+		for (int[] pair : getTaskPairs())
+			if (lazySpatialConstraints) // separated by the solver
+				taskPairs.add(pair);
+			else
+				addInterTaskCliqueConstraints(pair[0], tasks[pair[1]]);
+
+		endFormulationStage("spatial constraints");
+
+		/* Structural constraints. */
+		Model.Row structuralConstraintsRow;
+		int x;
+		for (h = 0; h < tasks.length; h++) { // task
+			for (i = 0; i < tasks[h].demand.possibleLocations.length; i++) // location
+				for (int slotTime : slotTimes[h]) { // time
+					k = slotTime;
+					structuralConstraintsRow = new Model.Row();
+					for (j = 1; j < coalitionsNr; j++) // coalition
+						if ((x = getCAVar(h, i, j, k)) > -1) {
+							structuralConstraintsRow.add(x, 1);
+							// Temporal constraints (2) - all coalition allocations must have the same location
+							model.addLe(new Model.Row().add(x, 1).add(locVars[h] + i, -1), 0);
+						}
+					if (structuralConstraintsRow.size() > 1)
+						model.addLe(structuralConstraintsRow, 1); // at most 1 CA per task, location and time
+				}
+		}
+
+		endFormulationStage("structural constraints");
+	}
+
+	/**
+	 * Creates a BIP with a variable for each agent type, task, location and time.
+	 *
+	 * Since coalition values only depend on coalition size, a binary variable for
+	 * each coalition size links the number of agents working on a task to the
+	 * work done, and the size of the model is polynomial in the number of agents.
+	 */
+	protected void createAgentFormulation() {
+		model = new Model();
+
+		agentVars = new int[agentTypes.length][tasks.length][][];
+		sizeVars = new int[tasks.length][][][];
+		locVars = new int[tasks.length];
+
+		double[] workloadCoefs = new double[sizeValues.length], sizeCoefs = new double[sizeValues.length];
+		for (int s = 0; s < sizeValues.length; s++) {
+			workloadCoefs[s] = sizeValues[s];
+			sizeCoefs[s] = -(s + 1);
+		}
+
+		int h, i, k, c, s, size, first, firstTime;
+		Location[] possibleLocations;
+		TimeWindow tw;
+		Model.Row workloadDone, agentsSum;
+
+		for (h = 0; h < tasks.length; h++) { // task
+			possibleLocations = tasks[h].demand.possibleLocations;
+			tw = tasks[h].demand.timeWindow;
+			sizeVars[h] = new int[possibleLocations.length][tw.hardLatestTime - tw.earliestTime][];
+			locVars[h] = model.addBinaryVariables(possibleLocations.length);
+			for (c = 0; c < agentTypes.length; c++) {
+				agentVars[c][h] = new int[possibleLocations.length][tw.hardLatestTime - tw.earliestTime];
+				for (int[] a : agentVars[c][h])
+					Arrays.fill(a, -1);
+			}
+			workloadDone = new Model.Row();
+
+			firstTime = getFirstTime(h);
+
+			for (i = 0; i < possibleLocations.length; i++) { // location
+				for (k = firstTime - tw.earliestTime; k < tw.hardLatestTime - tw.earliestTime; k++) { // time
+					agentsSum = new Model.Row();
+					size = 0;
+
+					/*
+					 * Spatial constraints (1).
+					 *
+					 * Agents can work on the task only after reaching its location.
+					 */
+					for (c = 0; c < agentTypes.length; c++)
+						if (agentTypes[c].getTravelTimeTo(possibleLocations[i]) < tw.earliestTime + k) {
+							agentVars[c][h][i][k] = model.addVariables(1, 0, agentTypes[c].size(), Model.Type.INTEGER);
+							agentsSum.add(agentVars[c][h][i][k], 1);
+							size += agentTypes[c].size();
+						}
+
+					if (size == 0)
+						continue;
+
+					first = model.addBinaryVariables(size); // coalition size
+					sizeVars[h][i][k] = new int[size];
+					for (s = 0; s < size; s++) {
+						sizeVars[h][i][k][s] = first + s;
+						model.setObjectiveCoefficient(first + s, tasks[h].demand.profit * (tw.earliestTime + k));
+						// Temporal constraints (2) - all coalition allocations must have the same location
+						model.addLe(new Model.Row().add(first + s, 1).add(locVars[h] + i, -1), 0);
+					}
+					workloadDone.add(first, Arrays.copyOf(workloadCoefs, size));
+
+					/* Structural constraints: at most 1 CA per task, location and time, made of the agents working. */
+					model.addLe(new Model.Row().add(first, ones(size)), 1);
+					agentsSum.add(first, Arrays.copyOf(sizeCoefs, size));
+					model.addEq(agentsSum, 0);
+				}
+			}
+
+			/* Temporal constraints (1). */
+			model.addLe(new Model.Row().add(locVars[h], ones(possibleLocations.length)), 1);
+			model.addGe(workloadDone, tasks[h].demand.workload);
+		}
+
+		endFormulationStage("variables");
+
+		/* At each time, agents can work on at most one task. */
+		Model.Row[] busyAgents;
+		for (c = 0; c < agentTypes.length; c++) {
+			busyAgents = new Model.Row[problem.maximumProblemCompletionTime + 1];
+			for (h = 0; h < tasks.length; h++)
+				for (i = 0; i < agentVars[c][h].length; i++)
+					for (k = 0; k < agentVars[c][h][i].length; k++)
+						if (agentVars[c][h][i][k] > -1) {
+							int t = tasks[h].demand.timeWindow.earliestTime + k;
+							if (busyAgents[t] == null)
+								busyAgents[t] = new Model.Row();
+							busyAgents[t].add(agentVars[c][h][i][k], 1);
+						}
+			for (Model.Row row : busyAgents)
+				if (row != null && row.size() > 1)
+					model.addLe(row, agentTypes[c].size());
+		}
+
+		endFormulationStage("capacity constraints");
+
+		/*
+		 * Spatial constraints (2).
+		 *
+		 * If an agent can't work on two tasks consecutively,
+		 * then it can work on at most one between them.
+		 */
+		for (int[] pair : getTaskPairs())
+			addInterTaskAgentConstraints(pair[0], tasks[pair[1]]);
+
+		endFormulationStage("spatial constraints");
+	}
+
+	protected static double[] ones(int n) {
+		double[] a = new double[n];
+		Arrays.fill(a, 1);
+		return a;
+	}
+
+	/**
+	 * The first time at which agents can work on <code>tasks[h]</code>.
+	 *
+	 * Ordering constraints: no work before the hard latest time of the precedence.
+	 */
+	protected int getFirstTime(int h) {
+		int firstTime = tasks[h].demand.timeWindow.earliestTime;
+		Task precedence = order != null ? order.get(tasks[h]) : null;
+
+		if (precedence != null && firstTime <= precedence.demand.timeWindow.hardLatestTime)
+			firstTime = precedence.demand.timeWindow.hardLatestTime + 1;
+
+		return firstTime;
+	}
+
+	/**
+	 * The pairs of tasks (h, v) such that agents might work on v after working
+	 * on <code>tasks[h]</code>, that is, the last time of v is after the first
+	 * time of <code>tasks[h]</code>.
+	 */
+	protected List<int[]> getTaskPairs() {
+		List<int[]> l = new ArrayList<>();
+
+		for (int h = 0; h < tasks.length; h++)
+			for (int v = 0; v < tasks.length; v++)
+				if (v != h && tasks[v].demand.timeWindow.hardLatestTime - 1 > tasks[h].demand.timeWindow.earliestTime)
+					l.add(new int[] { h, v });
+
+		return l;
+	}
+
+	/**
+	 * Spatial constraints (2) of the agent-indexed formulation: the agents of
+	 * type c working on <code>tasks[h]</code> at time t cannot work on
+	 * <code>v</code> until they reach it. The times of <code>v</code> until t
+	 * are in the capacity constraints, or in the constraints of the pair
+	 * (<code>v</code>, <code>tasks[h]</code>).
+	 */
+	private void addInterTaskAgentConstraints(int h, Task v) {
+		Location[] possibleLocations = v.demand.possibleLocations;
+		TimeWindow tw = v.demand.timeWindow;
+		int t, u, last;
+
+		for (int c = 0; c < agentTypes.length; c++)
+			for (int i = 0; i < agentVars[c][h].length; i++)
+				for (int k = 0; k < agentVars[c][h][i].length; k++)
+					if (agentVars[c][h][i][k] > -1)
+						for (int i2 = 0; i2 < possibleLocations.length; i2++) {
+							t = tasks[h].demand.timeWindow.earliestTime + k;
+							last = Math.min(t + 1 + agentTypes[c].getTravelTime(tasks[h].demand.possibleLocations[i], possibleLocations[i2]), tw.hardLatestTime - 1);
+
+							for (u = Math.max(t + 1, tw.earliestTime); u <= last; u++)
+								if (agentVars[c][v.id][i2][u - tw.earliestTime] > -1)
+									model.addLe(new Model.Row().add(agentVars[c][h][i][k], 1).add(agentVars[c][v.id][i2][u - tw.earliestTime], 1), agentTypes[c].size());
+						}
+	}
+
+	protected float getCoalitionValue(Task task, Location location, Agent[] coalition, int coalitionIdx) {
+		/* Size-only problems: |A| size classes instead of 2^|A| coalitions. */
+		if (sizeValues != null)
+			return sizeValues[coalition.length - 1];
+
+		/* The problem is in charge of caching values that depend on task or location. */
+		if (!problem.isTaskIndependent() || !problem.isLocationIndependent())
+			return problem.getValue(task, location, coalition);
+
+		Float f = caValueMap.get(coalitionIdx);
+
+		if (f != null)
+			return f;
+
+		f = problem.getValue(task, location, coalition);
+		caValueMap.put(coalitionIdx, f);
+
+		return f;
+	}
+
+	@SuppressWarnings("unused")
+	private float getPhiPsi(int taskIndex, int t) {
+		TimeWindow tw = tasks[taskIndex].demand.timeWindow;
+		float d = tasks[taskIndex].demand.profit;
+		if (t > tw.softLatestTime)
+			d *= (float) 1/t;
+		return d;
+	}
+
+	private int startingTimeFromInitialLocation(Task task, Location location, Agent[] coalition) {
+		int gamma = task.demand.timeWindow.hardLatestTime;
+		int max = 0, temp;
+
+		for (Agent a : coalition) {
+			temp = a.getTravelTimeTo(location);
+			if (temp >= gamma)
+				return -1; // if some agents in this coalition cannot reach location, then this coalition is not valid
+			if (temp > max)
+				max = temp;
+		}
+
+		/* If an agent reaches a task location at time t, it starts to work at time t+1. */
+		return max + 1;
+	}
+
+	/**
+	 * Spatial constraints (2) at the same time, as cliques of the conflict graph:
+	 * for each agent type and time t, the agents of that type working on the
+	 * coalition allocations whose time slot covers t are at most the agents of
+	 * that type. The coefficients are the numbers of agents of that type in the
+	 * coalitions.
+	 */
+	private void addCapacityCliqueConstraints() {
+		int c, h, n, t, count, first, last;
+		Model.Row[] rows;
+		int[] rowTasks; // the task of the variables of a row, or -2 if they are of several tasks
+
+		for (c = 0; c < agentTypes.length; c++) {
+			rows = new Model.Row[problem.maximumProblemCompletionTime + 1];
+			rowTasks = new int[rows.length];
+			Arrays.fill(rowTasks, -1);
+
+			for (n = 0; n < caVarsNr; n++) {
+				count = getTypeCounts(caCoalitions[n])[c];
+				if (count == 0)
+					continue;
+
+				h = caTasks[n];
+				first = tasks[h].demand.timeWindow.earliestTime + caTimes[n];
+				last = first + slotLengths[h][slots[h][caTimes[n]]] - 1;
+				for (t = first; t <= last; t++) {
+					if (rows[t] == null)
+						rows[t] = new Model.Row();
+					rows[t].add(caVars[n], count);
+					rowTasks[t] = rowTasks[t] == -1 || rowTasks[t] == h ? h : -2;
+				}
+			}
+
+			for (t = 0; t < rows.length; t++)
+				if (rowTasks[t] == -2) // agents of the same task are limited by the structural constraints
+					model.addLe(rows[t], agentTypes[c].size());
+		}
+	}
+
+	/**
+	 * Spatial constraints (2) between different times, aggregated by agent type.
+	 *
+	 * The agents of type c working on <code>tasks[h]</code> at location
+	 * <code>i</code> in a time slot cannot work on <code>v</code> at location
+	 * <code>i2</code> until they reach it (see
+	 * {@link #isTravelConflict(AgentType, int, int, int, Task, int, int)}).
+	 * Instead of one constraint per pair of coalitions, there is one per agent
+	 * type and pair of time slots, over all the coalitions with agents of that
+	 * type. With one agent per type, these are cliques of the conflict graph.
+	 */
+	private void addInterTaskCliqueConstraints(int h, Task v) {
+		int i, i2, c, s, k, u;
+		TimeWindow tw = v.demand.timeWindow;
+		Model.Row row;
+
+		for (i = 0; i < tasks[h].demand.possibleLocations.length; i++)
+			for (i2 = 0; i2 < v.demand.possibleLocations.length; i2++)
+				for (c = 0; c < agentTypes.length; c++)
+					for (s = 0; s < slotTimes[h].length; s++) {
+						k = slotTimes[h][s];
+						for (u = Math.max(getSlotEnd(h, k) + 1, tw.earliestTime); u < tw.hardLatestTime
+								&& isTravelConflict(agentTypes[c], h, i, k, v, i2, u - tw.earliestTime); u++)
+							if (slots[v.id][u - tw.earliestTime] > -1
+									&& (row = getCliqueConstraint(c, h, i, k, v, i2, u - tw.earliestTime)) != null)
+								model.addLe(row, agentTypes[c].size());
+					}
+	}
+
+	/**
+	 * @return The last time of the time slot of <code>tasks[h]</code> starting
+	 *         at time <code>k</code>, where <code>k</code> is relative to the
+	 *         earliest time of the task.
+	 */
+	protected int getSlotEnd(int h, int k) {
+		return tasks[h].demand.timeWindow.earliestTime + k + slotLengths[h][slots[h][k]] - 1;
+	}
+
+	/**
+	 * The agents of type <code>type</code> working on <code>tasks[h]</code> at
+	 * location <code>i</code> in the time slot starting at time <code>k</code>
+	 * cannot work on <code>v</code> at location <code>i2</code> in the time
+	 * slot starting at time <code>k2</code>, which starts after the end of the
+	 * first one. If an agent reaches a location at time t, it starts to work at
+	 * time t+1.
+	 *
+	 * The time slots that intersect are in the capacity constraints, and the
+	 * ones of <code>v</code> before the one of <code>tasks[h]</code> are
+	 * checked with the pair (<code>v</code>, <code>tasks[h]</code>).
+	 */
+	protected boolean isTravelConflict(AgentType type, int h, int i, int k, Task v, int i2, int k2) {
+		int end = getSlotEnd(h, k), u = v.demand.timeWindow.earliestTime + k2;
+
+		return end < u && u <= end + 1 + type.getTravelTime(tasks[h].demand.possibleLocations[i], v.demand.possibleLocations[i2]);
+	}
+
+	/**
+	 * The agents of type c used by <code>tasks[h]</code> at location
+	 * <code>i</code> and time <code>k</code>, and by <code>v</code> at location
+	 * <code>i2</code> and time <code>k2</code>, are at most the agents of that
+	 * type, that is, the returned row is at most <code>agentTypes[c].size()</code>.
+	 *
+	 * @return The row, or null if the constraint cannot be violated.
+	 */
+	protected Model.Row getCliqueConstraint(int c, int h, int i, int k, Task v, int i2, int k2) {
+		Model.Row row = new Model.Row();
+		int j, n, x, max = 0, max2 = 0;
+
+		for (j = 1; j < coalitionsNr; j++) {
+			n = getTypeCounts(j)[c];
+			if (n == 0)
+				continue;
+
+			if ((x = getCAVar(h, i, j, k)) > -1) {
+				row.add(x, n);
+				max = Math.max(max, n);
+			}
+
+			if ((x = getCAVar(v.id, i2, j, k2)) > -1) {
+				row.add(x, n);
+				max2 = Math.max(max2, n);
+			}
+		}
+
+		if (max == 0 || max2 == 0 || max + max2 <= agentTypes[c].size())
+			return null;
+
+		return row;
+	}
+
+	/**
+	 * The agent types of which two coalitions, with <code>counts[k]</code> and
+	 * <code>counts2[k]</code> agents of type k, together use more agents than
+	 * available, that is, the types with at least one agent in common. With one
+	 * agent per type, these are the common agents.
+	 */
+	protected List<AgentType> getCommonTypes(int[] counts, int[] counts2) {
+		List<AgentType> l = new ArrayList<>();
+
+		for (int k = 0; k < agentTypes.length; k++)
+			if (counts[k] + counts2[k] > agentTypes[k].size())
+				l.add(agentTypes[k]);
+
+		return l;
+	}
+
+	protected int getMaxRho(List<AgentType> types, Location location, Location location2) {
+		int rho, maxRho = 0;
+
+		for (AgentType type : types) {
+			rho = type.getTravelTime(location, location2);
+			if (rho > maxRho)
+				maxRho = rho;
+		}
+
+		return maxRho;
+	}
+
+	/* Register the n variables of the model from first, of task h, location i and coalition j. */
+	private void addCAVars(int first, int n, int h, int i, int j, int startSlot) {
+		if (caVarsNr + n > caVars.length) {
+			int length = Math.max(2 * caVars.length, caVarsNr + n);
+			caVars = Arrays.copyOf(caVars, length);
+			caTasks = Arrays.copyOf(caTasks, length);
+			caLocations = Arrays.copyOf(caLocations, length);
+			caCoalitions = Arrays.copyOf(caCoalitions, length);
+			caTimes = Arrays.copyOf(caTimes, length);
+		}
+
+		caOffsets[h][i][j] = caVarsNr;
+		caStartSlots[h][i][j] = startSlot;
+
+		for (int k = 0; k < n; k++, caVarsNr++) {
+			caVars[caVarsNr] = first + k;
+			caTasks[caVarsNr] = h;
+			caLocations[caVarsNr] = i;
+			caCoalitions[caVarsNr] = j;
+			caTimes[caVarsNr] = slotTimes[h][startSlot + k];
+		}
+	}
+
+	/**
+	 * @return The coalition allocation variable of task <code>h</code>, location
+	 *         <code>i</code>, coalition <code>j</code> and time <code>k</code>,
+	 *         or -1 if it does not exist.
+	 */
+	protected int getCAVar(int h, int i, int j, int k) {
+		if (i >= caOffsets[h].length || j >= caOffsets[h][i].length || caOffsets[h][i][j] < 0 || k < 0 || k >= slots[h].length
+				|| slots[h][k] < caStartSlots[h][i][j])
+			return -1;
+
+		return caVars[caOffsets[h][i][j] + slots[h][k] - caStartSlots[h][i][j]];
+	}
+
+	/**
+	 * Define the time slots of the coalition-indexed formulation.
+	 *
+	 * @param length  The length of the time slots.
+	 * @param records If not null, the tasks with at least one of these
+	 *                coalition allocations only have slots of one time unit,
+	 *                within <code>length</code> time units of them. The other
+	 *                tasks keep slots of <code>length</code> time units.
+	 */
+	protected void setTimeSlots(int length, List<int[]> records) {
+		boolean[][] allowed = new boolean[tasks.length][];
+
+		if (records != null)
+			for (int[] r : records) {
+				TimeWindow tw = tasks[r[0]].demand.timeWindow;
+				if (allowed[r[0]] == null)
+					allowed[r[0]] = new boolean[tw.hardLatestTime - tw.earliestTime];
+				for (int k = Math.max(0, r[2] - tw.earliestTime - length); k <= Math.min(allowed[r[0]].length - 1, r[3] - tw.earliestTime + length); k++)
+					allowed[r[0]][k] = true;
+			}
+
+		slotTimes = new int[tasks.length][];
+		slotLengths = new int[tasks.length][];
+		slots = new int[tasks.length][];
+
+		for (int h = 0; h < tasks.length; h++) {
+			TimeWindow tw = tasks[h].demand.timeWindow;
+			List<Integer> l = new ArrayList<>();
+			int slotLength = allowed[h] != null ? 1 : length;
+
+			slots[h] = new int[tw.hardLatestTime - tw.earliestTime];
+			Arrays.fill(slots[h], -1);
+
+			for (int k = 0; k < slots[h].length; k += slotLength)
+				if (allowed[h] == null || allowed[h][k]) {
+					slots[h][k] = l.size();
+					l.add(k);
+				}
+
+			slotTimes[h] = new int[l.size()];
+			slotLengths[h] = new int[l.size()];
+			for (int s = 0; s < l.size(); s++) {
+				slotTimes[h][s] = l.get(s);
+				slotLengths[h][s] = Math.min(slotLength, slots[h].length - l.get(s));
+			}
+		}
+	}
+
+	protected void endFormulationStage(String stage) {
+		formulationStageTimes.merge(stage, stageStopwatch.elapsed(TimeUnit.MILLISECONDS), Long::sum);
+		stageStopwatch.reset().start();
+	}
+
+	/**
+	 * The score of the coalition allocations selected by the values of the
+	 * model variables <code>values</code>.
+	 */
+	protected float getScore(double[] values) {
+		int h, i, j, k;
+		float score = 0;
+
+		if (formulation == Formulation.AGENT) {
+			for (h = 0; h < sizeVars.length; h++) // task
+				for (i = 0; i < sizeVars[h].length; i++) // location
+					for (k = 0; k < sizeVars[h][i].length; k++) // time
+						if (sizeVars[h][i][k] != null)
+							for (j = 0; j < sizeVars[h][i][k].length; j++) // coalition size
+								if (values[sizeVars[h][i][k][j]] > 0)
+									score += getScore(h, k);
+		} else
+			for (j = 0; j < caVarsNr; j++) // coalition allocation
+				if (values[caVars[j]] > 0)
+					score += getScore(caTasks[j], caTimes[j]);
+
+		return score;
+	}
+
+	protected float getScore(int h, int k) {
+		if (tasks[h].demand.timeWindow.earliestTime + k <= tasks[h].demand.timeWindow.softLatestTime)
+			return tasks[h].demand.profit;
+		return (float) 1 / k * tasks[h].demand.profit;
+	}
+
+	/**
+	 * The coalition allocations of the coalition-indexed formulation, as records
+	 * (task, location, start time, end time, agents of each type). The
+	 * consecutive times with the same agents are merged.
+	 *
+	 * @param values The values of the model variables.
+	 */
+	protected List<int[]> getCoalitionRecords(double[] values) {
+		int h, i, j, n, end, startTime, endTime, earliestTime;
+		int[] run; // record of the last times with the same agents
+		List<int[]> l = new ArrayList<>();
+
+		for (h = 0; h < caOffsets.length; h++) { // task
+			earliestTime = tasks[h].demand.timeWindow.earliestTime;
+			for (i = 0; i < caOffsets[h].length; i++) // location
+				for (j = 0; j < caOffsets[h][i].length; j++) { // coalition
+					if (caOffsets[h][i][j] < 0)
+						continue;
+
+					end = caOffsets[h][i][j] + slotTimes[h].length - caStartSlots[h][i][j];
+					run = null;
+					for (n = caOffsets[h][i][j]; n < end; n++) // time
+						if (values[caVars[n]] > 0) {
+							startTime = earliestTime + caTimes[n];
+							endTime = startTime + slotLengths[h][slots[h][caTimes[n]]] - 1;
+							if (run != null && run[3] == startTime - 1)
+								run[3] = endTime;
+							else {
+								run = getRecord(h, i, startTime, endTime, getTypeCounts(j));
+								l.add(run);
+							}
+						}
+				}
+		}
+
+		return l;
+	}
+
+	/**
+	 * The coalition allocations of the agent-indexed formulation, as records
+	 * (task, location, start time, end time, agents of each type). As for the
+	 * coalition-indexed formulation, the consecutive times with the same agents
+	 * are merged.
+	 *
+	 * @param values The values of the model variables.
+	 */
+	protected List<int[]> getAgentRecords(double[] values) {
+		int h, i, k, c, s, t;
+		int[] counts, run; // record of the last times with the same agents
+		List<int[]> l = new ArrayList<>();
+
+		for (h = 0; h < sizeVars.length; h++) // task
+			for (i = 0; i < sizeVars[h].length; i++) { // location
+				run = null;
+				for (k = 0; k < sizeVars[h][i].length; k++) { // time
+					if (sizeVars[h][i][k] == null)
+						continue;
+
+					for (s = 0; s < sizeVars[h][i][k].length; s++) // coalition size
+						if (values[sizeVars[h][i][k][s]] > 0.5) {
+							counts = new int[agentTypes.length];
+							for (c = 0; c < agentTypes.length; c++)
+								counts[c] = agentVars[c][h][i][k] < 0 ? 0 : (int) Math.round(values[agentVars[c][h][i][k]]);
+							t = tasks[h].demand.timeWindow.earliestTime + k;
+							if (run != null && run[3] == t - 1 && Arrays.equals(counts, Arrays.copyOfRange(run, 4, run.length)))
+								run[3] = t;
+							else {
+								run = getRecord(h, i, t, t, counts);
+								l.add(run);
+							}
+						}
+				}
+			}
+
+		return l;
+	}
+
+	/**
+	 * The coalition allocations of a solution of (a clone of) the problem, as
+	 * records (task, location, start time, end time, agents of each type).
+	 */
+	protected List<int[]> toRecords(Solution solution) {
+		Map<Integer, Integer> taskIdx = new HashMap<>(), typeIdx = new HashMap<>();
+		for (int h = 0; h < tasks.length; h++)
+			taskIdx.put(tasks[h].id, h);
+		for (AgentType type : agentTypes)
+			for (Agent a : type.agents)
+				typeIdx.put(a.id, type.id);
+
+		List<int[]> l = new ArrayList<>(solution.coalitionAllocations.length);
+		for (CoalitionAllocation ca : solution.coalitionAllocations) {
+			int h = taskIdx.get(ca.task.id);
+			int[] counts = new int[agentTypes.length];
+			for (Agent a : ca.coalition)
+				counts[typeIdx.get(a.id)]++;
+			l.add(getRecord(h, Arrays.asList(tasks[h].demand.possibleLocations).indexOf(ca.location), ca.startTime, ca.endTime, counts));
+		}
+
+		return l;
+	}
+
+	/**
+	 * The values of the model variables that select the coalition allocations
+	 * <code>records</code>, to be used as start. The coalition allocations that
+	 * are not in the model are left out, hence the values might not be feasible.
+	 */
+	protected double[] getStartValues(List<int[]> records) {
+		double[] values = new double[model.getVariablesNr()];
+		int c, h, i, k, x, size;
+
+		for (int[] r : records) {
+			h = r[0];
+			i = r[1];
+			if (i < 0)
+				continue;
+
+			for (int t = r[2]; t <= r[3]; t++) {
+				k = t - tasks[h].demand.timeWindow.earliestTime;
+
+				if (formulation == Formulation.AGENT) {
+					if (k < 0 || k >= sizeVars[h][i].length || sizeVars[h][i][k] == null)
+						continue;
+					size = 0;
+					for (c = 0; c < agentTypes.length; c++)
+						if (agentVars[c][h][i][k] > -1) {
+							values[agentVars[c][h][i][k]] = r[4 + c];
+							size += r[4 + c];
+						}
+					if (size > 0 && size <= sizeVars[h][i][k].length)
+						values[sizeVars[h][i][k][size - 1]] = 1;
+				} else if ((x = getCAVar(h, i, getCoalitionNumber(Arrays.copyOfRange(r, 4, r.length)), k)) > -1)
+					values[x] = 1;
+			}
+
+			values[locVars[h] + i] = 1;
+		}
+
+		return values;
+	}
+
+	protected static int[] getRecord(int h, int i, int startTime, int endTime, int[] counts) {
+		int[] r = new int[4 + counts.length];
+		r[0] = h;
+		r[1] = i;
+		r[2] = startTime;
+		r[3] = endTime;
+		System.arraycopy(counts, 0, r, 4, counts.length);
+		return r;
+	}
+
+	/**
+	 * The number of the coalition with <code>counts[k]</code> agents of type k.
+	 */
+	protected int getCoalitionNumber(int[] counts) {
+		int n = 0, radix = 1;
+
+		for (int k = 0; k < agentTypes.length; k++) {
+			n += counts[k] * radix;
+			radix *= agentTypes[k].size() + 1;
+		}
+
+		return n;
+	}
+
+	/**
+	 * The number of agents of each type in coalition <code>n</code>.
+	 */
+	protected int[] getTypeCounts(int n) {
+		int[] counts = typeCountMap.get(n);
+
+		if (counts != null)
+			return counts;
+
+		counts = new int[agentTypes.length];
+		int m = n;
+		for (int k = 0; k < agentTypes.length && m > 0; k++) {
+			counts[k] = m % (agentTypes[k].size() + 1);
+			m /= agentTypes[k].size() + 1;
+		}
+
+		typeCountMap.put(n, counts);
+
+		return counts;
+	}
+
+	/**
+	 * A representative of coalition <code>n</code>, made of the first agents of
+	 * each type. Use {@link #expand(List)} to get the actual agents of a solution.
+	 */
+	protected Agent[] getCoalition(int n) {
+		if (n <= 0) // empty coalition
+			return null;
+
+		Agent[] coalition = caMap.get(n);
+
+		if (coalition != null)
+			return coalition;
+
+		coalition = getCoalition(getTypeCounts(n));
+
+		if (coalition != null)
+			caMap.put(n, coalition);
+
+		return coalition;
+	}
+
+	/**
+	 * A representative of the coalition with <code>counts[k]</code> agents of
+	 * type k, made of the first agents of each type.
+	 */
+	protected Agent[] getCoalition(int[] counts) {
+		List<Agent> l = new ArrayList<>();
+
+		for (int k = 0; k < agentTypes.length; k++)
+			for (int c = 0; c < counts[k]; c++)
+				l.add(agentTypes[k].agents[c]);
+
+		return l.size() > 0 ? l.toArray(new Agent[0]) : null;
+	}
+
+	/**
+	 * Map the type counts of the coalition allocations found to actual agents.
+	 *
+	 * Allocations are processed by start time. For each type, the agents are
+	 * picked among the ones that can work on the task at its start time (see
+	 * {@link #getReadyTime(Agent, CoalitionAllocation, Task, Location)}): the
+	 * ones already working on the same task first, then the ones that have been
+	 * free for the longest time.
+	 *
+	 * @param l A list of records (task, location, start time, end time, agents of each type).
+	 * @return The coalition allocations.
+	 * @throws IllegalStateException If there are not enough such agents, that
+	 *         is, if the records violate the constraints of the BIP.
+	 */
+	protected List<CoalitionAllocation> expand(List<int[]> l) {
+		l.sort(Comparator.comparingInt((int[] r) -> r[2]).thenComparingInt(r -> r[3]));
+
+		Map<Agent, CoalitionAllocation> lastAllocation = new HashMap<>();
+		List<CoalitionAllocation> lca = new ArrayList<>(l.size());
+
+		for (int[] r : l) {
+			Task task = tasks[r[0]];
+			Location location = task.demand.possibleLocations[r[1]];
+			List<Agent> coalition = new ArrayList<>();
+
+			for (int k = 0; k < agentTypes.length; k++) {
+				if (r[4 + k] == 0)
+					continue;
+
+				List<Agent> candidates = new ArrayList<>();
+				for (Agent a : agentTypes[k].agents)
+					if (getReadyTime(a, lastAllocation.get(a), task, location) <= r[2])
+						candidates.add(a);
+
+				if (candidates.size() < r[4 + k])
+					throw new IllegalStateException(String.format("only %d of the agents %s can work on %s at time %d, instead of %d",
+						candidates.size(), agentTypes[k], task, r[2], r[4 + k]));
+
+				candidates.sort(Comparator.comparing((Agent a) -> lastAllocation.get(a) == null || lastAllocation.get(a).task != task)
+					.thenComparingInt(a -> lastAllocation.get(a) == null ? -1 : lastAllocation.get(a).endTime));
+
+				coalition.addAll(candidates.subList(0, r[4 + k]));
+			}
+
+			Agent[] coalitionArr = coalition.toArray(new Agent[0]);
+			CoalitionAllocation ca = new CoalitionAllocation(task, location, coalitionArr, getValue(task, location, coalitionArr), r[2], r[3]);
+			for (Agent a : coalitionArr)
+				lastAllocation.put(a, ca);
+			lca.add(ca);
+		}
+
+		return lca;
+	}
+
+	/**
+	 * The first time at which agent <code>a</code> can work on
+	 * <code>task</code> at <code>location</code>, after working on the coalition
+	 * allocation <code>ca</code> (null if none), as in the spatial constraints.
+	 * If an agent reaches a location at time t, it starts to work at time t+1.
+	 */
+	protected static int getReadyTime(Agent a, CoalitionAllocation ca, Task task, Location location) {
+		if (ca == null)
+			return a.getTravelTimeTo(location) + 1;
+		if (ca.task == task)
+			return ca.endTime + 1;
+		return ca.endTime + 1 + a.getTravelTime(ca.location, location) + 1;
+	}
+
+	public float getFormulationTime() {
+		return formulationTime;
+	}
+
+	/**
+	 * @return The time at which the last solution was found (ms), or -1 if the
+	 *         solver does not record it.
+	 */
+	public long getLastSolutionTime() {
+		return -1;
+	}
+
+	/**
+	 * @return The time taken to solve the coarse formulation (ms), with time
+	 *         buckets, which is not part of the formulation time.
+	 */
+	public float getCoarseSolvingTime() {
+		return 0;
+	}
+
+	/**
+	 * @return The time taken by each stage of the formulation (ms), in order.
+	 *         With column generation, this includes the pricing rounds.
+	 */
+	public Map<String, Long> getFormulationStageTimes() {
+		return Collections.unmodifiableMap(formulationStageTimes);
+	}
+
+}
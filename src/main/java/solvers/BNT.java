@@ -49,7 +49,7 @@ public class BNT extends Solver {
 
 		for (int i = 0; i < coalition.length; i++) { // already sorted
 			subCoalition = ArrayUtils.subarray(coalition, 0, i + 1);
-			subCoalitionValue = problem.getValue(task, location, subCoalition);
+			subCoalitionValue = getValue(task, location, subCoalition);
 
 			if (i + 1 <  coalition.length)
 				contribution = (coalition[i + 1].arrivalTime - coalition[i].arrivalTime) * subCoalitionValue;
@@ -105,6 +105,51 @@ public class BNT extends Solver {
 		return assignableAgents;
 	}
 
+	/**
+	 * Same as {@link #getAssignable(Task, Location, Agent[])}, but the travel
+	 * time is computed once per agent type.
+	 *
+	 * Since agents with the same arrival time are equivalent to the returned
+	 * set, only the first agent of each type can be part of it.
+	 */
+	public TreeSet<Agent> getAssignable(Task v, Location location, AgentType[] types) {
+		int earliestTime = v.demand.timeWindow.earliestTime;
+		int hardLatestTime = v.demand.timeWindow.hardLatestTime;
+		int arrivalTime;
+
+		TreeSet<Agent> assignableAgents = new TreeSet<>(byArrivalTime);
+
+		for (AgentType type : types) {
+			arrivalTime = type.endTime + type.getTravelTimeTo(location);
+			if (arrivalTime <= hardLatestTime) { // the type satisfies the spatial constraints of (v, location)
+				arrivalTime = Math.max(arrivalTime, earliestTime);
+				for (Agent a : type.agents)
+					a.arrivalTime = arrivalTime;
+				assignableAgents.add(type.agents[0]);
+			}
+		}
+
+		return assignableAgents;
+	}
+
+	protected Solution getSingletonSolution(Task v, AgentType[] types) {
+		Solution currentSolution, bestSolution = null;
+		TreeSet<Agent> assignableAgents;
+
+		for (Location location : v.demand.possibleLocations) {
+			assignableAgents = getAssignable(v, location, types);
+
+			if (assignableAgents.size() > 0) { // satisfy the temporal constraints
+				currentSolution = getSingletonSolution(v, location, assignableAgents);
+				if (currentSolution != null)
+					if (bestSolution == null || currentSolution.getScore(true) > bestSolution.getScore(true))
+						bestSolution = currentSolution;
+			}
+		}
+
+		return bestSolution;
+	}
+
 	protected Solution getSingletonSolution(Task v, Agent[] agents) {
 		Solution currentSolution, bestSolution = null;
 		TreeSet<Agent> assignableAgents;
@@ -142,6 +187,7 @@ public class BNT extends Solver {
 		HashSet<Task> completedTasks = new HashSet<>();
 		HashSet<CoalitionAllocation> l = new HashSet<>();
 		Solution currentSolution, bestSolution;
+		AgentType[] types = AgentType.partition(agents);
 
 		for (int i = 0; i < tasks.length; i++) { // define i-th singleton solution
 			bestSolution = null;
@@ -149,7 +195,7 @@ public class BNT extends Solver {
 				if (v.status.equals(Task.Status.COMPLETED))
 					continue;
 
-				currentSolution = getSingletonSolution(v, agents);
+				currentSolution = getSingletonSolution(v, types);
 				if (currentSolution != null && (bestSolution == null || currentSolution.getScore(false) > bestSolution.getScore(false)))
 					bestSolution = currentSolution;
 			}
@@ -159,6 +205,7 @@ public class BNT extends Solver {
 
 			singletonScores.put(bestSolution.tasks.iterator().next().id, bestSolution.getScore(false));
 			updateAgentStatus(bestSolution);
+			types = AgentType.partition(agents);
 			completedTasks.addAll(bestSolution.tasks);
 			for (Task v : bestSolution.tasks)
 				v.status = Task.Status.COMPLETED;
@@ -179,9 +226,10 @@ public class BNT extends Solver {
 
 			 // For each task v, compute the optimal score of the sub-problem where there is only v
 			Agent[] agentsCopy = Utils.deepClone(agents);
+			AgentType[] types = AgentType.partition(agentsCopy);
 			Solution s;
 			for (int i = 0; i < tasks.length; i++) {
-				s = getSingletonSolution(tasks[i], agentsCopy);
+				s = getSingletonSolution(tasks[i], types);
 				if (s != null)
 					optimalSingletonScores[i] = s.getScore(false);
 				for (Agent a : agentsCopy)
@@ -0,0 +1,633 @@
+package solvers;
+
+import bip.DualSimplex;
+import bip.Model;
+import model.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Solving the BIP of the MARSC with a branch and bound written in Java, for
+ * when CPLEX is not available.
+ *
+ * The linear relaxation of each node is solved with the dual simplex method
+ * (see {@link DualSimplex}). Most rows of the BIP are never tight, hence the
+ * relaxation starts without rows, and the rows violated by its solution are
+ * added until none is. The covering rows are strengthened by rounding (see
+ * {@link #addRoundedRows()}), and bounds are tightened at each node by
+ * propagating the rows of the variables branched on.
+ *
+ * Nodes are processed by several threads. Each thread dives into the child
+ * closest to the solution of the relaxation, with the basis of its parent,
+ * and leaves the other child to be picked by any thread, in best-bound order.
+ *
+ * @author lcpz
+ */
+public class BranchAndBound extends BIPSolver {
+
+	/*
+	 * A node is defined by the bounds changed with respect to its parent, by
+	 * branching and propagation.
+	 */
+	static class Node {
+		final Node parent;
+		final int[] vars;
+		final double[] lbs, ubs;
+		final double bound; // objective value of the relaxation of the parent
+
+		Node(Node parent, int[] vars, double[] lbs, double[] ubs, double bound) {
+			this.parent = parent;
+			this.vars = vars;
+			this.lbs = lbs;
+			this.ubs = ubs;
+			this.bound = bound;
+		}
+	}
+
+	private static final double INTEGRALITY_TOLERANCE = 1e-6, FEASIBILITY_TOLERANCE = 1e-6;
+
+	/*
+	 * Maximum number of rows added to a relaxation at once, and number of rows
+	 * above which the rows with a basic slack are removed from it.
+	 */
+	private static final int MAX_ROWS_PER_ROUND = 500, MAX_ROWS = 100;
+
+	/* Maximum number of rounded rows (see addRoundedRows) for a row of the model. */
+	private static final int MAX_ROUNDED_ROWS = 8;
+
+	protected int threads = Runtime.getRuntime().availableProcessors();
+
+	/* Rows of the model by variable: the rows of variable j are from colStarts[j] to colStarts[j + 1] - 1. */
+	private int[] colStarts, colRows;
+
+	/* Bounds of the model, tightened by propagation. */
+	private double[] rootLbs, rootUbs;
+
+	/*
+	 * Nodes not yet processed: in depth-first order until there is an incumbent,
+	 * to find one quickly, and in best-bound order afterwards.
+	 */
+	private final Deque<Node> pendingNodes = new ArrayDeque<>();
+	private final PriorityQueue<Node> nodes = new PriorityQueue<>(Comparator.comparingDouble((Node node) -> node.bound));
+
+	/* Number of threads processing a node. */
+	private int busy;
+	private long deadline;
+
+	/* Maximum number of nodes solved, after which the best solution found is returned. */
+	protected long nodeLimit = Long.MAX_VALUE;
+
+	/* Whether nodes were dropped because of the time or node limit. */
+	private volatile boolean limitReached;
+
+	private double[] incumbent;
+	private volatile double incumbentValue = Double.POSITIVE_INFINITY;
+
+	/* Statistics */
+	private String status = "Unsolved";
+	private long nodesNr, lpIterations;
+
+	public BranchAndBound(MARSC problem) {
+		super(problem);
+	}
+
+	public BranchAndBound(MARSC problem, Formulation formulation, int threads) {
+		this(problem);
+
+		try {
+			if (threads < 1)
+				throw new Exception("the number of threads must be positive");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+		if (formulation == Formulation.COLUMN_GENERATION) {
+			System.err.println("Column generation requires CPLEX, using the coalition-indexed formulation");
+			formulation = Formulation.COALITION;
+		}
+
+		this.formulation = checkFormulation(formulation);
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * @param warmStart A solution of (a clone of) the problem, used as first
+	 *                  incumbent if feasible. Its tasks and agents are matched
+	 *                  by identifier.
+	 */
+	public BranchAndBound(MARSC problem, Formulation formulation, int threads, Solution warmStart) {
+		this(problem, formulation, threads);
+		this.warmStart = warmStart;
+	}
+
+	/**
+	 * @param timeLimit The maximum time spent on the branch and bound (ms),
+	 *                  after which the best solution found is returned.
+	 */
+	public BranchAndBound(MARSC problem, Formulation formulation, int threads, Solution warmStart, long timeLimit) {
+		this(problem, formulation, threads, warmStart);
+
+		try {
+			if (timeLimit <= 0)
+				throw new Exception("the time limit must be positive");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+		if (timeLimit > 0)
+			this.timeLimit = timeLimit;
+	}
+
+	@Override
+	public void solve() {
+		stageStopwatch.reset().start();
+
+		createModel();
+		addRoundedRows();
+		indexColumns();
+		endFormulationStage("column index");
+
+		if (stopwatch != null)
+			formulationTime = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+
+		/* First incumbents. */
+		EDF edf = new EDF(problem.copy());
+		edf.solve();
+		if (edf.getSolution() != null)
+			updateIncumbent(getStartValues(toRecords(edf.getSolution())));
+		if (warmStart != null)
+			updateIncumbent(getStartValues(toRecords(warmStart)));
+
+		rootLbs = new double[model.getVariablesNr()];
+		rootUbs = new double[rootLbs.length];
+		for (int j = 0; j < rootLbs.length; j++) {
+			rootLbs[j] = model.getLowerBound(j);
+			rootUbs[j] = model.getUpperBound(j);
+		}
+
+		int[] allRows = new int[model.getRowsNr()];
+		Arrays.setAll(allRows, r -> r);
+		if (propagate(rootLbs, rootUbs, allRows)) {
+			nodes.add(new Node(null, new int[0], new double[0], new double[0], Double.NEGATIVE_INFINITY));
+			deadline = System.currentTimeMillis() + timeLimit;
+
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			List<Callable<Void>> l = new ArrayList<>(threads);
+			for (int i = 0; i < threads; i++)
+				l.add(() -> {
+					work();
+					return null;
+				});
+
+			try {
+				for (Future<Void> future : executor.invokeAll(l))
+					future.get();
+			} catch (InterruptedException | ExecutionException e) {
+				e.printStackTrace();
+			} finally {
+				executor.shutdown();
+			}
+		}
+
+		endFormulationStage("branch and bound");
+
+		if (limitReached)
+			status = incumbent == null ? "unknown" : "feasible";
+		else
+			status = incumbent == null ? "infeasible" : "optimal";
+
+		if (incumbent != null) {
+			Set<Task> taskSet = new HashSet<>();
+			Collections.addAll(taskSet, tasks);
+
+			List<int[]> l = formulation == Formulation.AGENT ? getAgentRecords(incumbent) : getCoalitionRecords(incumbent);
+			solution = new Solution(taskSet, expand(l).toArray(new CoalitionAllocation[0]));
+		}
+	}
+
+	/**
+	 * Chvátal-Gomory rounding of the covering rows, such as the workload ones:
+	 * if sum_k a_k x_k >= b, with a_k > 0 and x_k non-negative integers, then
+	 * sum_k ceil(a_k / c) x_k >= ceil(b / c) for any c > 0. With c a coefficient
+	 * of the row, e.g., the value of a coalition in a time slot, the rounded row
+	 * cuts off the solutions of the relaxation that complete a workload with a
+	 * fraction of a time slot of that coalition.
+	 *
+	 * The rounded rows are added to the model, and are satisfied by all its
+	 * integer solutions.
+	 */
+	private void addRoundedRows() {
+		int r, t, j, rowsNr = model.getRowsNr();
+		double rhs;
+		boolean covering;
+		Set<Double> coefs = new TreeSet<>();
+
+		for (r = 0; r < rowsNr; r++) {
+			if (model.getSense(r) != Model.Sense.GE || model.getRhs(r) <= 0)
+				continue;
+
+			coefs.clear();
+			covering = true;
+			for (t = model.getRowStart(r); t < model.getRowStart(r + 1) && covering; t++) {
+				j = model.getRowVariable(t);
+				covering = model.getRowCoefficient(t) > 0 && model.getType(j) != Model.Type.CONTINUOUS && model.getLowerBound(j) >= 0;
+				coefs.add(model.getRowCoefficient(t));
+			}
+
+			if (!covering || coefs.size() > MAX_ROUNDED_ROWS)
+				continue;
+
+			for (double c : coefs) {
+				rhs = Math.ceil(model.getRhs(r) / c - INTEGRALITY_TOLERANCE);
+				if (rhs < model.getRhs(r) / c + INTEGRALITY_TOLERANCE) // nothing to round
+					continue;
+
+				Model.Row row = new Model.Row();
+				for (t = model.getRowStart(r); t < model.getRowStart(r + 1); t++)
+					row.add(model.getRowVariable(t), Math.ceil(model.getRowCoefficient(t) / c - INTEGRALITY_TOLERANCE));
+				model.addGe(row, rhs);
+			}
+		}
+
+		endFormulationStage("rounded rows");
+	}
+
+	private void indexColumns() {
+		int n = model.getVariablesNr(), j, r, t;
+
+		colStarts = new int[n + 1];
+		for (t = 0; t < model.getNonZerosNr(); t++)
+			colStarts[model.getRowVariable(t) + 1]++;
+		for (j = 0; j < n; j++)
+			colStarts[j + 1] += colStarts[j];
+
+		int[] next = Arrays.copyOf(colStarts, n);
+		colRows = new int[model.getNonZerosNr()];
+		for (r = 0; r < model.getRowsNr(); r++)
+			for (t = model.getRowStart(r); t < model.getRowStart(r + 1); t++)
+				colRows[next[model.getRowVariable(t)]++] = r;
+	}
+
+	private synchronized Node take() throws InterruptedException {
+		while (nodes.isEmpty() && pendingNodes.isEmpty() && busy > 0)
+			wait();
+
+		if ((!nodes.isEmpty() || !pendingNodes.isEmpty()) && isLimitReached()) {
+			pendingNodes.clear();
+			nodes.clear();
+		}
+
+		if (nodes.isEmpty() && pendingNodes.isEmpty()) {
+			notifyAll();
+			return null;
+		}
+
+		busy++;
+		return pendingNodes.isEmpty() ? nodes.poll() : pendingNodes.pollLast();
+	}
+
+	/* Called before dropping nodes: whether the time or node limit is reached, which is then recorded. */
+	private synchronized boolean isLimitReached() {
+		if (System.currentTimeMillis() > deadline || nodesNr >= nodeLimit)
+			limitReached = true;
+		return limitReached;
+	}
+
+	private synchronized void push(Node node) {
+		if (incumbent == null)
+			pendingNodes.add(node);
+		else
+			nodes.add(node);
+		notifyAll();
+	}
+
+	private synchronized void release() {
+		busy--;
+		notifyAll();
+	}
+
+	/* Process nodes until there are none left. */
+	private void work() throws InterruptedException {
+		DualSimplex lp = new DualSimplex(model);
+		int n = model.getVariablesNr();
+		double[] lbs = new double[n], ubs = new double[n];
+		Node node;
+
+		while ((node = take()) != null)
+			try {
+				getBounds(node, lbs, ubs);
+				dive(node, lp, lbs, ubs);
+			} finally {
+				release();
+			}
+
+		synchronized (this) {
+			lpIterations += lp.getIterations();
+		}
+	}
+
+	/* The bounds of a node, from the root ones and the changes of its ancestors. */
+	private void getBounds(Node node, double[] lbs, double[] ubs) {
+		System.arraycopy(rootLbs, 0, lbs, 0, lbs.length);
+		System.arraycopy(rootUbs, 0, ubs, 0, ubs.length);
+
+		Deque<Node> path = new ArrayDeque<>();
+		for (Node a = node; a != null; a = a.parent)
+			path.push(a);
+
+		for (Node a : path)
+			for (int k = 0; k < a.vars.length; k++) {
+				lbs[a.vars[k]] = a.lbs[k];
+				ubs[a.vars[k]] = a.ubs[k];
+			}
+	}
+
+	/**
+	 * Solve the relaxation of <code>node</code>, with bounds <code>lbs</code> and
+	 * <code>ubs</code>, and of the child closest to its solution, until the
+	 * children are pruned.
+	 */
+	private void dive(Node node, DualSimplex lp, double[] lbs, double[] ubs) {
+		int n = lbs.length, j;
+		double value;
+		double[] values;
+
+		while (node != null) {
+			if (node.bound >= getCutoff() || isLimitReached())
+				return;
+
+			for (j = 0; j < n; j++)
+				lp.setBounds(j, lbs[j], ubs[j]);
+
+			/* Add the violated rows, until the solution of the relaxation satisfies all the rows. */
+			while (true) {
+				if (isLimitReached() || lp.solve() != DualSimplex.Status.OPTIMAL)
+					return;
+
+				value = lp.getObjectiveValue();
+				if (value >= getCutoff())
+					return;
+
+				values = lp.getValues();
+				if (lp.getRowsNr() > MAX_ROWS)
+					lp.removeSlackRows();
+				if (!addViolatedRows(lp, values))
+					break;
+			}
+
+			synchronized (this) {
+				nodesNr++;
+			}
+
+			j = getBranchingVariable(values, lbs, ubs);
+			if (j < 0) {
+				for (int k = 0; k < n; k++)
+					if (model.getType(k) != Model.Type.CONTINUOUS)
+						values[k] = Math.round(values[k]);
+				setIncumbent(values, value);
+				return;
+			}
+
+			/* Children: x_j <= floor(value) and x_j >= ceil(value). */
+			double floor = Math.floor(values[j]), ceil = Math.ceil(values[j]);
+			boolean up = values[j] - floor > 0.5;
+			double[] lbs2 = lbs.clone(), ubs2 = ubs.clone();
+			if (up)
+				ubs2[j] = floor; // other child
+			else
+				lbs2[j] = ceil;
+			if (propagate(lbs2, ubs2, j))
+				push(getChild(node, lbs, ubs, lbs2, ubs2, value));
+
+			double[] parentLbs = lbs.clone(), parentUbs = ubs.clone();
+			if (up)
+				lbs[j] = ceil;
+			else
+				ubs[j] = floor;
+			node = propagate(lbs, ubs, j) ? getChild(node, parentLbs, parentUbs, lbs, ubs, value) : null;
+		}
+	}
+
+	private Node getChild(Node parent, double[] lbs, double[] ubs, double[] childLbs, double[] childUbs, double bound) {
+		List<Integer> l = new ArrayList<>();
+		for (int j = 0; j < lbs.length; j++)
+			if (lbs[j] != childLbs[j] || ubs[j] != childUbs[j])
+				l.add(j);
+
+		int[] vars = new int[l.size()];
+		double[] lbs2 = new double[vars.length], ubs2 = new double[vars.length];
+		for (int k = 0; k < vars.length; k++) {
+			vars[k] = l.get(k);
+			lbs2[k] = childLbs[vars[k]];
+			ubs2[k] = childUbs[vars[k]];
+		}
+
+		return new Node(parent, vars, lbs2, ubs2, bound);
+	}
+
+	/**
+	 * Add the rows violated by <code>values</code> to <code>lp</code>, the most
+	 * violated first.
+	 *
+	 * @return False if no row is violated.
+	 */
+	private boolean addViolatedRows(DualSimplex lp, double[] values) {
+		List<double[]> violated = new ArrayList<>(); // row and violation
+		double violation;
+
+		for (int r = 0; r < model.getRowsNr(); r++) {
+			violation = getViolation(r, values);
+			if (violation > FEASIBILITY_TOLERANCE && !lp.isActive(r))
+				violated.add(new double[] { r, violation });
+		}
+
+		violated.sort(Comparator.comparingDouble((double[] v) -> -v[1]));
+		for (int k = 0; k < Math.min(MAX_ROWS_PER_ROUND, violated.size()); k++)
+			lp.addRow((int) violated.get(k)[0]);
+
+		return !violated.isEmpty();
+	}
+
+	/* How much row r is violated by values. */
+	private double getViolation(int r, double[] values) {
+		double activity = 0;
+		for (int t = model.getRowStart(r); t < model.getRowStart(r + 1); t++)
+			activity += model.getRowCoefficient(t) * values[model.getRowVariable(t)];
+
+		switch (model.getSense(r)) {
+			case LE:
+				return activity - model.getRhs(r);
+			case GE:
+				return model.getRhs(r) - activity;
+			default:
+				return Math.abs(activity - model.getRhs(r));
+		}
+	}
+
+	/* The most fractional integer variable, or -1 if none. */
+	private int getBranchingVariable(double[] values, double[] lbs, double[] ubs) {
+		int best = -1;
+		double fractionality, bestFractionality = INTEGRALITY_TOLERANCE;
+
+		for (int j = 0; j < values.length; j++) {
+			if (model.getType(j) == Model.Type.CONTINUOUS || lbs[j] == ubs[j])
+				continue;
+
+			fractionality = Math.abs(values[j] - Math.round(values[j]));
+			if (fractionality > bestFractionality) {
+				bestFractionality = fractionality;
+				best = j;
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * Tighten bounds by propagating the rows of the variables changed, starting
+	 * from the rows of variable <code>j</code>.
+	 *
+	 * @return False if the bounds are infeasible.
+	 */
+	private boolean propagate(double[] lbs, double[] ubs, int j) {
+		return propagate(lbs, ubs, Arrays.copyOfRange(colRows, colStarts[j], colStarts[j + 1]));
+	}
+
+	private boolean propagate(double[] lbs, double[] ubs, int[] rows) {
+		Deque<Integer> queue = new ArrayDeque<>();
+		BitSet queued = new BitSet(model.getRowsNr());
+		for (int r : rows) {
+			queue.add(r);
+			queued.set(r);
+		}
+
+		int r, t, j;
+		double minActivity, maxActivity, coef, rhs, bound;
+
+		while (!queue.isEmpty()) {
+			r = queue.poll();
+			queued.clear(r);
+			rhs = model.getRhs(r);
+
+			minActivity = maxActivity = 0;
+			for (t = model.getRowStart(r); t < model.getRowStart(r + 1); t++) {
+				j = model.getRowVariable(t);
+				coef = model.getRowCoefficient(t);
+				minActivity += coef > 0 ? coef * lbs[j] : coef * ubs[j];
+				maxActivity += coef > 0 ? coef * ubs[j] : coef * lbs[j];
+			}
+
+			boolean le = model.getSense(r) != Model.Sense.GE, ge = model.getSense(r) != Model.Sense.LE;
+			if (le && minActivity > rhs + FEASIBILITY_TOLERANCE || ge && maxActivity < rhs - FEASIBILITY_TOLERANCE)
+				return false;
+
+			for (t = model.getRowStart(r); t < model.getRowStart(r + 1); t++) {
+				j = model.getRowVariable(t);
+				coef = model.getRowCoefficient(t);
+				boolean changed = false;
+
+				if (le) { // the activity of the other variables is at least minActivity minus the one of j
+					bound = (rhs - minActivity + (coef > 0 ? coef * lbs[j] : coef * ubs[j])) / coef;
+					changed = coef > 0 ? tightenUpper(lbs, ubs, j, bound) : tightenLower(lbs, ubs, j, bound);
+				}
+
+				if (ge) {
+					bound = (rhs - maxActivity + (coef > 0 ? coef * ubs[j] : coef * lbs[j])) / coef;
+					changed |= coef > 0 ? tightenLower(lbs, ubs, j, bound) : tightenUpper(lbs, ubs, j, bound);
+				}
+
+				if (changed) {
+					if (lbs[j] > ubs[j] + FEASIBILITY_TOLERANCE)
+						return false;
+
+					for (int k = colStarts[j]; k < colStarts[j + 1]; k++)
+						if (!queued.get(colRows[k])) {
+							queue.add(colRows[k]);
+							queued.set(colRows[k]);
+						}
+
+					/* Activities changed: recompute them when the row is processed again. */
+					if (!queued.get(r)) {
+						queue.add(r);
+						queued.set(r);
+					}
+					break;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	private boolean tightenUpper(double[] lbs, double[] ubs, int j, double bound) {
+		if (model.getType(j) != Model.Type.CONTINUOUS)
+			bound = Math.floor(bound + FEASIBILITY_TOLERANCE);
+		if (bound >= ubs[j] - FEASIBILITY_TOLERANCE)
+			return false;
+		ubs[j] = bound;
+		return true;
+	}
+
+	private boolean tightenLower(double[] lbs, double[] ubs, int j, double bound) {
+		if (model.getType(j) != Model.Type.CONTINUOUS)
+			bound = Math.ceil(bound - FEASIBILITY_TOLERANCE);
+		if (bound <= lbs[j] + FEASIBILITY_TOLERANCE)
+			return false;
+		lbs[j] = bound;
+		return true;
+	}
+
+	/* Nodes whose relaxation is not better than this are pruned. */
+	private double getCutoff() {
+		return incumbentValue - Math.max(FEASIBILITY_TOLERANCE, 1e-9 * Math.abs(incumbentValue));
+	}
+
+	/* Use values as incumbent, if they are a feasible solution of the model better than the incumbent. */
+	private void updateIncumbent(double[] values) {
+		for (int j = 0; j < values.length; j++)
+			if (values[j] < model.getLowerBound(j) || values[j] > model.getUpperBound(j))
+				return;
+
+		for (int r = 0; r < model.getRowsNr(); r++)
+			if (getViolation(r, values) > FEASIBILITY_TOLERANCE)
+				return;
+
+		setIncumbent(values, model.getObjectiveValue(values));
+	}
+
+	private synchronized void setIncumbent(double[] values, double value) {
+		if (value < incumbentValue) {
+			incumbent = values;
+			incumbentValue = value;
+			nodes.addAll(pendingNodes);
+			pendingNodes.clear();
+		}
+	}
+
+	/**
+	 * @return The objective value of the best solution found, or positive
+	 *         infinity if none.
+	 */
+	public double getObjectiveValue() {
+		return incumbentValue;
+	}
+
+	public String getStats() {
+		StringBuilder stages = new StringBuilder();
+		long total = 0;
+		for (Map.Entry<String, Long> e : formulationStageTimes.entrySet()) {
+			stages.append(String.format("\n  %s: %s s", e.getKey(), e.getValue() / (float) 1000));
+			total += e.getValue();
+		}
+
+		return String.format("Solution status: %s\nSolution value: %s\nModel: %s\nNodes: %d\nSimplex iterations: %d\nTime by stage:%s\nTotal time: %s s",
+			status, incumbentValue, model, nodesNr, lpIterations, stages, total / (float) 1000);
+	}
+
+	@Override
+	public float getAnytimeQualityIndex() {
+		return 0;
+	}
+
+}
@@ -24,12 +24,44 @@ public class CTS extends Solver {
 
 	protected Solution[] singletonSolutions;
 
+	/*
+	 * Travel times from the current location of each agent to each possible
+	 * location of each task. Agents of the same type (i.e., with the same
+	 * location and speed) share the same table.
+	 */
+	protected int[][][] travelTimes;
+	protected Location[] travelTimesFrom;
+
+	/*
+	 * Event-driven simulation: instead of advancing the current time by one unit,
+	 * jump to the next time at which the status of an agent or a task can change.
+	 */
+	protected boolean eventDriven = true;
+
+	/* Pending event times (agent arrivals and task completions). */
+	protected PriorityQueue<Integer> events;
+
+	/*
+	 * For each idle agent, the time from which it cannot reach any uncompleted
+	 * task before its hard latest time, since its last potential allocation.
+	 */
+	protected int[] reachableUntil;
+
+	/* For each task and location index, the agents to which the task is currently allocable. */
+	protected List<List<List<Agent>>> allocableAgents;
+
+	/* If not null, tasks[i] is the task at index taskOrder[i] in the problem. */
+	protected int[] taskOrder;
+
+	/*
+	 * Travel-time tables shared with other CTS instances solving copies of the
+	 * same problem, keyed by departure location and speed, and indexed as the
+	 * tasks of the problem.
+	 */
+	protected Map<List<Object>, int[][]> sharedTravelTimes;
+
 	public CTS(MARSC problem) {
 		super(problem);
-
-		for (Task v : tasks)
-			if (v != null)
-				resetAllocableMap(v);
 	}
 
 	public CTS(MARSC problem, int[] taskOrder) {
@@ -40,14 +72,29 @@ public class CTS extends Solver {
 			for (int i = 0; i < tasks.length; i++)
 				orderedTasks[i] = tasks[taskOrder[i]];
 			tasks = orderedTasks;
+			this.taskOrder = taskOrder;
 		} else
 			System.err.println("Input task order array does not have the right length");
 	}
 
+	public CTS(MARSC problem, int[] taskOrder, Map<List<Object>, int[][]> sharedTravelTimes) {
+		this(problem, taskOrder);
+		this.sharedTravelTimes = sharedTravelTimes;
+	}
+
+	public CTS(MARSC problem, boolean eventDriven) {
+		this(problem);
+		this.eventDriven = eventDriven;
+	}
+
 	/**
 	 * Given agent <code>a</code>, set as allocable to <code>a</code> the current
 	 * closest and uncompleted/allocated task v reachable by <code>a</code>.
 	 *
+	 * Tasks are scanned in order, with the travel times of the agent's current
+	 * location, and a task replaces the current choice only if it is reachable
+	 * earlier and has an earlier hard latest time.
+	 *
 	 * @param i An agent index.
 	 */
 	protected void setPotentialAllocationsTo(int i) {
@@ -57,36 +104,36 @@ public class CTS extends Solver {
 		    problem.maximumProblemCompletionTime + 1,
 			problem.maximumProblemCompletionTime + 1
 		};
-		Location[] locations = new Location[2];
+		int[] locations = new int[2];
 
-		int idx, t, gamma;
-		Task precedence;
+		int idx, t, gamma, l;
+		int[][] rho = getTravelTimes(i);
+
+		reachableUntil[i] = Integer.MIN_VALUE;
 
 		for (int j = 0; j < tasks.length; j++) {
-			if (tasks[j] == null)
+			if (!isEligible(j))
 				continue;
 
-			if (order != null) { // satisfy ordering constraints
-				precedence = order.get(tasks[j]);
-				if (precedence != null && precedence.status != Task.Status.COMPLETED)
-					continue;
-			}
+			gamma = tasks[j].demand.timeWindow.hardLatestTime;
+
+			// tasks allocable to other agents at this time are eligible again at the next one
+			for (l = 0; l < rho[j].length; l++)
+				reachableUntil[i] = Math.max(reachableUntil[i], gamma - rho[j][l]);
 
 			if (tasks[j].status == Task.Status.UNCOMPLETED || tasks[j].status == Task.Status.ALLOCATED) {
 				idx = 0;
 				if (tasks[j].status == Task.Status.ALLOCATED)
 					idx = 1;
 
-				gamma = tasks[j].demand.timeWindow.hardLatestTime;
-
-				for (Location location : tasks[j].demand.possibleLocations) {
-					t = currentTime + agents[i].getTravelTimeTo(location);
+				for (l = 0; l < rho[j].length; l++) {
+					t = currentTime + rho[j][l];
 					if (taskIdx[idx] == -1 || (t < gamma && t < arrivalTimes[idx]
 						&& gamma < tasks[taskIdx[idx]].demand.timeWindow.hardLatestTime)
 						&& (singletonSolutions[taskIdx[idx]] == null || singletonSolutions[taskIdx[idx]].getLastWorkingTime() >= t)) {
 						taskIdx[idx] = j;
 						arrivalTimes[idx] = t;
-						locations[idx] = location;
+						locations[idx] = l;
 					}
 				}
 			}
@@ -97,14 +144,80 @@ public class CTS extends Solver {
 			idx = taskIdx[0] > -1 ? 0 : 1;
 
 			tasks[taskIdx[idx]].status = Task.Status.ALLOCABLE;
-			tasks[taskIdx[idx]].allocableMap.get(locations[idx]).add(agents[i]);
+			allocableAgents.get(taskIdx[idx]).get(locations[idx]).add(agents[i]);
 
 			agents[i].target = tasks[taskIdx[idx]];
-			agents[i].targetLocation = locations[idx];
+			agents[i].targetLocation = tasks[taskIdx[idx]].demand.possibleLocations[locations[idx]];
 			agents[i].arrivalTime = arrivalTimes[idx];
 		} // else, no task is allocable to agents[i]
 	}
 
+	/* Whether tasks[j] is uncompleted and has no uncompleted precedence. */
+	protected boolean isEligible(int j) {
+		if (tasks[j] == null || tasks[j].status == Task.Status.COMPLETED)
+			return false;
+
+		if (order != null) { // satisfy ordering constraints
+			Task precedence = order.get(tasks[j]);
+			return precedence == null || precedence.status == Task.Status.COMPLETED;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Return the travel times from the current location of agent
+	 * <code>agents[i]</code> to each possible location of each task.
+	 *
+	 * The table is only computed when the agent moves, and only if no other agent
+	 * of the same type already has it.
+	 *
+	 * @param i An agent index.
+	 */
+	protected int[][] getTravelTimes(int i) {
+		Location from = agents[i].location;
+
+		if (travelTimes[i] != null && from.equals(travelTimesFrom[i]))
+			return travelTimes[i];
+
+		travelTimes[i] = null;
+		for (int k = 0; k < agents.length; k++)
+			if (k != i && travelTimes[k] != null && agents[k].speed == agents[i].speed && from.equals(travelTimesFrom[k])) {
+				travelTimes[i] = travelTimes[k];
+				break;
+			}
+
+		if (travelTimes[i] == null) {
+			if (sharedTravelTimes != null) {
+				int[][] table = sharedTravelTimes.computeIfAbsent(Arrays.asList(from, agents[i].speed),
+					k -> getTravelTimes(problem.getTasks(), from, agents[i].speed));
+				travelTimes[i] = new int[tasks.length][];
+				for (int j = 0; j < tasks.length; j++)
+					travelTimes[i][j] = table[taskOrder == null ? j : taskOrder[j]];
+			} else
+				travelTimes[i] = getTravelTimes(tasks, from, agents[i].speed);
+		}
+
+		travelTimesFrom[i] = from;
+
+		return travelTimes[i];
+	}
+
+	protected static int[][] getTravelTimes(Task[] tasks, Location from, float speed) {
+		int[][] rho = new int[tasks.length][];
+
+		for (int j = 0; j < tasks.length; j++) {
+			if (tasks[j] == null)
+				continue;
+			Location[] possibleLocations = tasks[j].demand.possibleLocations;
+			rho[j] = new int[possibleLocations.length];
+			for (int l = 0; l < possibleLocations.length; l++)
+				rho[j][l] = from.getTravelTimeTo(possibleLocations[l], speed);
+		}
+
+		return rho;
+	}
+
 	/**
 	 * It finds a solution to a single task.
 	 *
@@ -113,11 +226,11 @@ public class CTS extends Solver {
 	 *
 	 * @param task      The task for which to find a solution.
 	 * @param location  The task location.
-	 * @param feasibleAgents A set of feasible agents.
+	 * @param feasibleAgents The feasible agents.
 	 *
 	 * @return A solution to the input task.
 	 */
-	protected Solution getSingletonSolution(Task task, Location location, Set<Agent> feasibleAgents) {
+	protected Solution getSingletonSolution(Task task, Location location, Collection<Agent> feasibleAgents) {
 		/*
 		 * We assume that task has no uncompleted precedence, and that assignableAgents
 		 * satisfies the spatial constraints. Since we are only defining a solution to
@@ -155,7 +268,7 @@ public class CTS extends Solver {
 			for (j = i - 1; j >= 0; j--)
 				subCoalition.addAll(m.get(arrivalTimes[j]));
 			Agent[] subCoalitionArr = subCoalition.toArray(new Agent[0]);
-			float subCoalitionValue = problem.getValue(task, location, subCoalitionArr);
+			float subCoalitionValue = getValue(task, location, subCoalitionArr);
 			float contribution;
 			if (i + 1 < arrivalTimes.length)
 				contribution = (arrivalTimes[i + 1] - arrivalTimes[i]) * subCoalitionValue;
@@ -191,10 +304,30 @@ public class CTS extends Solver {
 		return null;
 	}
 
-	protected void resetAllocableMap(Task v) {
-		v.allocableMap = new HashMap<>();
-		for (Location location : v.demand.possibleLocations)
-			v.allocableMap.put(location, new HashSet<>());
+	/**
+	 * Return the next time at which the status of an agent or a task can change.
+	 *
+	 * Between two events, idle agents cannot reach any task before its hard
+	 * latest time, and their arrival time is never earlier than the hard latest
+	 * time of their potential allocation. Hence, they cannot contribute to any
+	 * singleton solution, and skipping these times does not change the solution
+	 * found.
+	 *
+	 * @param nextTick Whether something may change at the next time unit.
+	 * @return The next event time, or a time greater than the maximum problem
+	 *         completion time if there are no more events.
+	 */
+	protected int getNextEventTime(boolean nextTick) {
+		if (!eventDriven || nextTick)
+			return currentTime + 1;
+
+		while (!events.isEmpty() && events.peek() <= currentTime)
+			events.poll();
+
+		if (events.isEmpty())
+			return problem.maximumProblemCompletionTime + 1;
+
+		return events.poll();
 	}
 
 	protected boolean someAgentsAreBusy() {
@@ -208,18 +341,37 @@ public class CTS extends Solver {
 	public void solve() {
 		int numberOfCompletedTasks = 0, i;
 		singletonSolutions = new Solution[tasks.length];
+		travelTimes = new int[agents.length][][];
+		travelTimesFrom = new Location[agents.length];
+		reachableUntil = new int[agents.length];
+		events = new PriorityQueue<>();
+		allocableAgents = new ArrayList<>(tasks.length);
+		for (i = 0; i < tasks.length; i++) {
+			List<List<Agent>> l = new ArrayList<>();
+			if (tasks[i] != null)
+				for (int k = 0; k < tasks[i].demand.possibleLocations.length; k++)
+					l.add(new ArrayList<>());
+			allocableAgents.add(l);
+		}
 		Solution solution;
+		boolean nextTick; // whether the next time unit must be simulated
 
 		do {
+			nextTick = false;
+
 			for (i = 0; i < agents.length; i++) {
 				// if idle, define which task can be assigned to this agent
-				if (agents[i].status == Agent.Status.IDLE)
+				if (agents[i].status == Agent.Status.IDLE) {
 					setPotentialAllocationsTo(i);
+					if (currentTime + 1 < reachableUntil[i])
+						nextTick = true;
+				}
 				// if target reached, update this agent's status and location
 				else if (agents[i].target != null && agents[i].status == Agent.Status.TRAVELING) {
 					if (agents[i].target.status == Task.Status.COMPLETED) {
 						agents[i].status = Agent.Status.IDLE;
 						agents[i].target = null;
+						nextTick = true;
 					} else if (agents[i].arrivalTime < currentTime) {
 						agents[i].status = Agent.Status.WORKING;
 						agents[i].location = agents[i].targetLocation;
@@ -230,35 +382,40 @@ public class CTS extends Solver {
 			for (i = 0; i < tasks.length; i++) {
 				if (tasks[i].status == Task.Status.ALLOCABLE) {
 					// define a solution, or improve an existing one
-					for (Location location : tasks[i].demand.possibleLocations) {
-						Set<Agent> allocableAgents = tasks[i].allocableMap.get(location);
+					for (int l = 0; l < tasks[i].demand.possibleLocations.length; l++) {
+						Location location = tasks[i].demand.possibleLocations[l];
+						List<Agent> feasibleAgents = allocableAgents.get(i).get(l);
 
-						if (allocableAgents.size() == 0)
+						if (feasibleAgents.size() == 0)
 							continue; // tasks[i] is currently not allocable at location
 
-                        if (singletonSolutions[i] != null)
+						if (singletonSolutions[i] != null)
 							for (Agent alreadyAllocatedAgent : singletonSolutions[i].agents)
 								if (alreadyAllocatedAgent.targetLocation.equals(location))
-									allocableAgents.add(alreadyAllocatedAgent);
+									feasibleAgents.add(alreadyAllocatedAgent);
 
-						solution = getSingletonSolution(tasks[i], location, allocableAgents);
+						solution = getSingletonSolution(tasks[i], location, feasibleAgents);
 
 						if (solution != null && (singletonSolutions[i] == null ||
 							solution.getScore(false) > singletonSolutions[i].getScore(false)))
 							singletonSolutions[i] = solution;
-					}
 
-					resetAllocableMap(tasks[i]);
+						feasibleAgents.clear();
+					}
 
 					if (singletonSolutions[i] != null) {
 						// update status and eventually location of assigned agents
-						for (Agent a : singletonSolutions[i].agents)
+						for (Agent a : singletonSolutions[i].agents) {
 							if (a.arrivalTime <= currentTime) { // agent already reached location
 								a.status = Agent.Status.WORKING;
 								a.location = a.targetLocation;
 							} else {
 								a.status = Agent.Status.TRAVELING;
+								events.add(a.arrivalTime);
+								events.add(a.arrivalTime + 1);
 							}
+						}
+						events.add(singletonSolutions[i].taskCompletionTime.get(tasks[i]));
 						tasks[i].status = Task.Status.ALLOCATED;
 					} else
 						tasks[i].status = Task.Status.UNCOMPLETED;
@@ -273,9 +430,11 @@ public class CTS extends Solver {
 					}
 					tasks[i].status = Task.Status.COMPLETED;
 					numberOfCompletedTasks++;
+					nextTick = true;
 				}
 			}
-		} while (someAgentsAreBusy() && numberOfCompletedTasks < tasks.length && ++currentTime <= problem.maximumProblemCompletionTime);
+		} while (someAgentsAreBusy() && numberOfCompletedTasks < tasks.length
+			&& (currentTime = getNextEventTime(nextTick)) <= problem.maximumProblemCompletionTime);
 	}
 
 	protected Solution merge(Solution[] singletonSolutions) {
@@ -301,11 +460,12 @@ public class CTS extends Solver {
 		return solution;
 	}
 
+	/* Singleton solution scores, indexed as the tasks of the problem. */
 	public float[] getSingletonSolutionScores() {
 		float[] f = new float[tasks.length];
 		for (int i = 0; i < tasks.length; i++)
 			if (singletonSolutions[i] != null)
-				f[i] = singletonSolutions[i].getScore(false);
+				f[taskOrder == null ? i : taskOrder[i]] = singletonSolutions[i].getScore(false);
 		return f;
 	}
 
@@ -0,0 +1,161 @@
+package solvers;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import model.Agent;
+import model.CoalitionAllocation;
+import model.MARSC;
+import model.Solution;
+import model.Task;
+
+/**
+ * A portfolio of CTS runs, one per task ordering, executed in parallel.
+ *
+ * Each run solves its own copy of the problem (see {@link MARSC#copy()}), and
+ * all runs share the same travel-time tables. The best merged solution is
+ * returned.
+ *
+ * @author lcpz
+ */
+public class CTSPortfolio extends Solver {
+
+	public enum Ordering {
+		INPUT,          // the order of the problem
+		EDF,            // earliest time, then hard latest time
+		DEADLINE,       // hard latest time, then earliest time
+		RANDOM,
+		PROFIT_DENSITY  // profit per unit of workload, in decreasing order
+	}
+
+	protected Ordering[] orderings = Ordering.values();
+
+	protected int threads = Runtime.getRuntime().availableProcessors();
+
+	/* The run with the best solution. */
+	protected CTS best;
+
+	public CTSPortfolio(MARSC problem) {
+		super(problem);
+	}
+
+	public CTSPortfolio(MARSC problem, int threads, Ordering... orderings) {
+		this(problem);
+
+		try {
+			if (threads < 1)
+				throw new Exception("the number of threads must be positive");
+			if (orderings.length == 0)
+				throw new Exception("no task ordering");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+		this.threads = threads;
+		this.orderings = orderings;
+	}
+
+	protected int[] getTaskOrder(Ordering ordering) {
+		List<Integer> l = new ArrayList<>(tasks.length);
+		for (int j = 0; j < tasks.length; j++)
+			l.add(j);
+
+		switch (ordering) {
+			case EDF:
+				l.sort(Comparator.comparingInt((Integer j) -> tasks[j].demand.timeWindow.earliestTime)
+					.thenComparingInt(j -> tasks[j].demand.timeWindow.hardLatestTime));
+				break;
+			case DEADLINE:
+				l.sort(Comparator.comparingInt((Integer j) -> tasks[j].demand.timeWindow.hardLatestTime)
+					.thenComparingInt(j -> tasks[j].demand.timeWindow.earliestTime));
+				break;
+			case RANDOM: // drawn from the seed of the problem, so that runs are reproducible
+				SplittableRandom rnd = new SplittableRandom(problem.getSeed());
+				for (int j = l.size() - 1; j > 0; j--)
+					Collections.swap(l, j, rnd.nextInt(j + 1));
+				break;
+			case PROFIT_DENSITY:
+				l.sort(Comparator.comparingDouble((Integer j) -> -tasks[j].demand.profit / tasks[j].demand.workload));
+				break;
+			default:
+				break;
+		}
+
+		int[] taskOrder = new int[tasks.length];
+		for (int j = 0; j < tasks.length; j++)
+			taskOrder[j] = l.get(j);
+
+		return taskOrder;
+	}
+
+	@Override
+	public void solve() {
+		Map<List<Object>, int[][]> sharedTravelTimes = new ConcurrentHashMap<>();
+		List<CTS> runs = new ArrayList<>(orderings.length);
+		List<Callable<Solution>> l = new ArrayList<>(orderings.length);
+
+		for (Ordering ordering : orderings) {
+			CTS cts = new CTS(problem.copy(), getTaskOrder(ordering), sharedTravelTimes);
+			runs.add(cts);
+			l.add(() -> {
+				cts.solve();
+				return cts.getSolution();
+			});
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, orderings.length));
+
+		try {
+			List<Future<Solution>> futures = executor.invokeAll(l);
+			for (int i = 0; i < futures.size(); i++) {
+				Solution s = futures.get(i).get();
+				if (best == null || s.getScore(false) > best.getSolution().getScore(false))
+					best = runs.get(i);
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			e.printStackTrace();
+		} finally {
+			executor.shutdown();
+		}
+
+		if (best != null)
+			solution = toProblemSolution(best.getSolution(), best.getProblem());
+	}
+
+	/* Map a solution of a problem copy to the tasks and agents of the problem. */
+	protected Solution toProblemSolution(Solution s, MARSC copy) {
+		Map<Task, Task> taskMap = new HashMap<>();
+		for (int j = 0; j < tasks.length; j++)
+			taskMap.put(copy.getTasks()[j], problem.getTasks()[j]);
+
+		Map<Agent, Agent> agentMap = new HashMap<>();
+		for (int i = 0; i < agents.length; i++)
+			agentMap.put(copy.getAgents()[i], problem.getAgents()[i]);
+
+		Set<Task> solutionTasks = new HashSet<>();
+		for (Task v : s.tasks)
+			solutionTasks.add(taskMap.get(v));
+
+		CoalitionAllocation[] coalitionAllocations = new CoalitionAllocation[s.coalitionAllocations.length];
+		for (int k = 0; k < coalitionAllocations.length; k++) {
+			CoalitionAllocation ca = s.coalitionAllocations[k];
+			Agent[] coalition = new Agent[ca.coalition.length];
+			for (int i = 0; i < coalition.length; i++)
+				coalition[i] = agentMap.get(ca.coalition[i]);
+			coalitionAllocations[k] = new CoalitionAllocation(taskMap.get(ca.task), ca.location, coalition,
+				ca.value, ca.startTime, ca.endTime);
+		}
+
+		return new Solution(solutionTasks, coalitionAllocations, s.getScore(false));
+	}
+
+	public Double getMedianApproximationScoreRatio() {
+		return best == null ? null : best.getMedianApproximationScoreRatio();
+	}
+
+	@Override
+	public float getAnytimeQualityIndex() {
+		return 0;
+	}
+
+}
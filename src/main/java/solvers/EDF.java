@@ -5,6 +5,7 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.TreeSet;
 
+import model.AgentType;
 import model.CoalitionAllocation;
 import model.MARSC;
 import model.Solution;
@@ -34,14 +35,16 @@ public class EDF extends BNT {
 		HashSet<Task> completedTasks = new HashSet<>();
 		HashSet<CoalitionAllocation> l = new HashSet<>();
 		Solution currentSolution;
+		AgentType[] types = AgentType.partition(agents);
 
 		for (Task v : taskSet) {
-			currentSolution = getSingletonSolution(v, agents);
+			currentSolution = getSingletonSolution(v, types);
 
 			/* No solution to node i, but it may exist a solution to node j > i. */
 			if (currentSolution == null) continue;
 
 			updateAgentStatus(currentSolution);
+			types = AgentType.partition(agents);
 			completedTasks.addAll(currentSolution.tasks);
 
 			singletonScores.put(currentSolution.tasks.iterator().next().id, currentSolution.getScore(false));
@@ -4,6 +4,7 @@ import java.util.Comparator;
 import java.util.Map;
 
 import com.google.common.base.Stopwatch;
+import locations.Location;
 import model.*;
 
 /**
@@ -23,6 +24,9 @@ public abstract class Solver {
 
 	protected volatile Solution solution; // volatile for multi-threading purposes
 
+	/* Coalition values indexed by coalition size, if the problem is size-only. */
+	protected float[] sizeValues;
+
 	public Solver(MARSC problem) {
 		try {
 			if (problem == null)
@@ -44,6 +48,8 @@ public abstract class Solver {
 		tasks = problem.getTasks().clone();
 
 		order = problem.getTaskOrdering();
+
+		sizeValues = problem.getSizeValues();
 	}
 
 	public final Comparator<Task> comparator = (v1, v2) -> {
@@ -88,6 +94,16 @@ public abstract class Solver {
 		return marginalScore;
 	}
 
+	/**
+	 * The value of a coalition, read from the precomputed table when the
+	 * characteristic function of the problem is size-only.
+	 */
+	protected float getValue(Task task, Location location, Agent[] coalition) {
+		if (sizeValues != null)
+			return sizeValues[coalition.length - 1];
+		return problem.getValue(task, location, coalition);
+	}
+
 	public MARSC getProblem() {
 		return problem;
 	}
@@ -0,0 +1,359 @@
+package toolkit;
+
+import com.javadocmd.simplelatlng.util.LengthUnit;
+import locations.Location;
+import locations.LocationLatLng;
+import locations.LocationManhattan;
+import locations.LocationPoint;
+import model.*;
+import problems.Problem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A file of MARSC instances in a compact binary format, each stored under a
+ * key (e.g., problem class, ratio and replicate).
+ *
+ * The file starts with a magic number and the format version. Instances
+ * follow, each with its attributes stored as columns (e.g., the earliest times
+ * of all tasks, then their soft latest times), so that they are written and
+ * read in bulk. Instances are read from memory-mapped regions of the file.
+ *
+ * The index of the instances (key, offset and length) is kept in a sidecar
+ * file (see {@link #getIndexPath(Path)}), with the same header. Each instance
+ * is appended to the archive, then its entry to the index, hence an archive
+ * interrupted at any point loses at most the instance being stored: incomplete
+ * entries, and instances without an entry, are discarded when it is opened.
+ *
+ * @author lcpz
+ */
+public class InstanceArchive implements Closeable {
+
+	public static final int MAGIC = 0x4d415253; // "MARS"
+
+	public static final short VERSION = 2;
+
+	private static final int HEADER_LENGTH = Integer.BYTES + Short.BYTES;
+
+	private static final byte POINT = 0, LAT_LNG = 1, MANHATTAN = 2;
+
+	private final FileChannel channel, indexChannel;
+
+	/* Key -> offset and length of the instance. */
+	private final Map<String, long[]> index = new LinkedHashMap<>();
+
+	/* Where the next instance and index entry are written. */
+	private long end, indexEnd;
+
+	/**
+	 * Open the archive at <code>path</code>, creating it if it does not exist.
+	 */
+	public InstanceArchive(Path path) throws IOException {
+		channel = open(path);
+		indexChannel = open(getIndexPath(path));
+		end = HEADER_LENGTH;
+		indexEnd = HEADER_LENGTH;
+
+		ByteBuffer buffer = indexChannel.map(FileChannel.MapMode.READ_ONLY, HEADER_LENGTH, indexChannel.size() - HEADER_LENGTH);
+		long size = channel.size();
+		while (buffer.remaining() >= Integer.BYTES) {
+			int keyLength = buffer.getInt();
+			if (keyLength < 0 || buffer.remaining() < keyLength + 2 * Long.BYTES)
+				break; // incomplete entry
+
+			byte[] key = new byte[keyLength];
+			buffer.get(key);
+			long offset = buffer.getLong(), length = buffer.getLong();
+			if (offset < HEADER_LENGTH || length < 0 || offset + length > size)
+				break; // the instance was not written completely
+
+			index.put(new String(key, StandardCharsets.UTF_8), new long[] { offset, length });
+			end = Math.max(end, offset + length);
+			indexEnd = HEADER_LENGTH + buffer.position();
+		}
+
+		/* Discard what was written after the last complete entry. */
+		indexChannel.truncate(indexEnd);
+		channel.truncate(end);
+	}
+
+	/**
+	 * The sidecar file with the index of the archive at <code>path</code>.
+	 */
+	public static Path getIndexPath(Path path) {
+		return path.resolveSibling(path.getFileName() + ".index");
+	}
+
+	/* Open a file of the archive, writing its header if new, and checking it otherwise. */
+	private static FileChannel open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+
+			if (channel.size() == 0) {
+				header.putInt(MAGIC).putShort(VERSION).flip();
+				while (header.hasRemaining())
+					channel.write(header, HEADER_LENGTH - header.remaining());
+				return channel;
+			}
+
+			while (header.hasRemaining() && channel.read(header, header.position()) > 0);
+			header.flip();
+			if (header.remaining() < HEADER_LENGTH || header.getInt() != MAGIC)
+				throw new IOException(String.format("%s is not an instance archive", path));
+			short version = header.getShort();
+			if (version != VERSION)
+				throw new IOException(String.format("%s has version %d, not %d", path, version, VERSION));
+
+			return channel;
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public synchronized boolean contains(String key) {
+		return index.containsKey(key);
+	}
+
+	public synchronized Set<String> keys() {
+		return new LinkedHashSet<>(index.keySet());
+	}
+
+	/**
+	 * @return The instance stored under <code>key</code>, or null if none.
+	 */
+	public MARSC get(String key) throws IOException {
+		long[] entry;
+		synchronized (this) {
+			entry = index.get(key);
+		}
+
+		if (entry == null)
+			return null;
+
+		return read(channel.map(FileChannel.MapMode.READ_ONLY, entry[0], entry[1]));
+	}
+
+	/**
+	 * Store <code>problem</code> under <code>key</code>, replacing the instance
+	 * already stored under it, if any. The instance is written before its index
+	 * entry, so that entries only point to complete instances.
+	 */
+	public void put(String key, MARSC problem) throws IOException {
+		ByteBuffer buffer = write(problem);
+		byte[] b = key.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer entry = ByteBuffer.allocate(Integer.BYTES + b.length + 2 * Long.BYTES);
+
+		synchronized (this) {
+			long offset = end;
+			while (buffer.hasRemaining())
+				end += channel.write(buffer, end);
+
+			entry.putInt(b.length).put(b).putLong(offset).putLong(end - offset).flip();
+			while (entry.hasRemaining())
+				indexEnd += indexChannel.write(entry, indexEnd);
+
+			index.put(key, new long[] { offset, end - offset });
+		}
+	}
+
+	/* Force the instances and the index to the storage device. */
+	public synchronized void flush() throws IOException {
+		channel.force(false);
+		indexChannel.force(false);
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+			indexChannel.close();
+		}
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		byte[] b = new byte[buffer.getInt()];
+		buffer.get(b);
+		return new String(b, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Write <code>problem</code> to a new buffer, ready to be read. Locations
+	 * (of tasks, then initial locations of agents) are stored as kind and two
+	 * coordinates; the task ordering as indexes of the tasks.
+	 */
+	public static ByteBuffer write(MARSC problem) {
+		Task[] tasks = problem.getTasks();
+		Agent[] agents = problem.getAgents();
+		int n = tasks.length, m = agents.length, i, k;
+
+		List<Location> locations = new ArrayList<>();
+		int[] locationsNr = new int[n];
+		for (i = 0; i < n; i++) {
+			locationsNr[i] = tasks[i].demand.possibleLocations.length;
+			locations.addAll(Arrays.asList(tasks[i].demand.possibleLocations));
+		}
+		for (Agent a : agents)
+			locations.add(a.initialLocation);
+		int l = locations.size();
+
+		Map<Task, Integer> taskIdx = new HashMap<>();
+		for (i = 0; i < n; i++)
+			taskIdx.put(tasks[i], i);
+		Map<Task, Task> order = problem.getTaskOrdering() == null ? Map.of() : problem.getTaskOrdering();
+
+		byte[] type = Problem.getType(problem).getBytes(StandardCharsets.UTF_8);
+
+		ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + type.length + Long.BYTES + 4 * Integer.BYTES
+				+ n * (5 * Integer.BYTES + 2 * Float.BYTES) + m * (Integer.BYTES + Float.BYTES)
+				+ l * (2 + 2 * Double.BYTES) + order.size() * 2 * Integer.BYTES);
+
+		buffer.putInt(type.length).put(type).putLong(problem.getSeed());
+		buffer.putInt(n).putInt(m).putInt(l).putInt(order.size());
+
+		int[] ints = new int[n];
+		float[] floats = new float[n];
+		for (i = 0; i < n; i++) ints[i] = tasks[i].id;
+		putInts(buffer, ints);
+		for (i = 0; i < n; i++) ints[i] = tasks[i].demand.timeWindow.earliestTime;
+		putInts(buffer, ints);
+		for (i = 0; i < n; i++) ints[i] = tasks[i].demand.timeWindow.softLatestTime;
+		putInts(buffer, ints);
+		for (i = 0; i < n; i++) ints[i] = tasks[i].demand.timeWindow.hardLatestTime;
+		putInts(buffer, ints);
+		putInts(buffer, locationsNr);
+		for (i = 0; i < n; i++) floats[i] = tasks[i].demand.workload;
+		putFloats(buffer, floats);
+		for (i = 0; i < n; i++) floats[i] = tasks[i].demand.profit;
+		putFloats(buffer, floats);
+
+		ints = new int[m];
+		floats = new float[m];
+		for (i = 0; i < m; i++) {
+			ints[i] = agents[i].id;
+			floats[i] = agents[i].speed;
+		}
+		putInts(buffer, ints);
+		putFloats(buffer, floats);
+
+		byte[] kinds = new byte[l], units = new byte[l];
+		double[] first = new double[l], second = new double[l];
+		for (k = 0; k < l; k++) {
+			Location location = locations.get(k);
+			if (location instanceof LocationLatLng) {
+				kinds[k] = LAT_LNG;
+				units[k] = (byte) ((LocationLatLng) location).lengthUnit.ordinal();
+				first[k] = ((LocationLatLng) location).location.getLatitude();
+				second[k] = ((LocationLatLng) location).location.getLongitude();
+			} else if (location instanceof LocationPoint) {
+				kinds[k] = POINT;
+				first[k] = ((LocationPoint) location).location.x;
+				second[k] = ((LocationPoint) location).location.y;
+			} else {
+				kinds[k] = MANHATTAN;
+				first[k] = ((LocationManhattan) location).x;
+				second[k] = ((LocationManhattan) location).y;
+			}
+		}
+		buffer.put(kinds).put(units);
+		buffer.asDoubleBuffer().put(first).put(second);
+		buffer.position(buffer.position() + 2 * l * Double.BYTES);
+
+		int[] preceded = new int[order.size()], precedence = new int[order.size()];
+		k = 0;
+		for (Map.Entry<Task, Task> entry : order.entrySet()) {
+			preceded[k] = taskIdx.get(entry.getKey());
+			precedence[k++] = taskIdx.get(entry.getValue());
+		}
+		putInts(buffer, preceded);
+		putInts(buffer, precedence);
+
+		return buffer.flip();
+	}
+
+	/**
+	 * Read an instance written by {@link #write(MARSC)} from
+	 * <code>buffer</code>.
+	 */
+	public static MARSC read(ByteBuffer buffer) {
+		String type = getString(buffer);
+		long seed = buffer.getLong();
+		int n = buffer.getInt(), m = buffer.getInt(), l = buffer.getInt(), orderNr = buffer.getInt(), i, k;
+
+		int[] ids = getInts(buffer, n), earliestTimes = getInts(buffer, n), softLatestTimes = getInts(buffer, n),
+			hardLatestTimes = getInts(buffer, n), locationsNr = getInts(buffer, n);
+		float[] workloads = getFloats(buffer, n), profits = getFloats(buffer, n);
+		int[] agentIds = getInts(buffer, m);
+		float[] speeds = getFloats(buffer, m);
+
+		byte[] kinds = new byte[l], units = new byte[l];
+		buffer.get(kinds).get(units);
+		double[] first = new double[l], second = new double[l];
+		buffer.asDoubleBuffer().get(first).get(second);
+		buffer.position(buffer.position() + 2 * l * Double.BYTES);
+
+		Location[] locations = new Location[l];
+		LengthUnit[] lengthUnits = LengthUnit.values();
+		for (k = 0; k < l; k++)
+			if (kinds[k] == LAT_LNG)
+				locations[k] = new LocationLatLng(first[k], second[k], lengthUnits[units[k]]);
+			else if (kinds[k] == POINT)
+				locations[k] = new LocationPoint((int) first[k], (int) second[k]);
+			else
+				locations[k] = new LocationManhattan((int) first[k], (int) second[k]);
+
+		Task[] tasks = new Task[n];
+		for (i = 0, k = 0; i < n; k += locationsNr[i++]) {
+			TimeWindow timeWindow = new TimeWindow(earliestTimes[i], softLatestTimes[i], hardLatestTimes[i]);
+			Location[] possibleLocations = Arrays.copyOfRange(locations, k, k + locationsNr[i]);
+			tasks[i] = new Task(ids[i], new Demand(possibleLocations, workloads[i], profits[i], timeWindow));
+		}
+
+		Agent[] agents = new Agent[m];
+		for (i = 0; i < m; i++)
+			agents[i] = new Agent(agentIds[i], locations[k + i], speeds[i]);
+
+		int[] preceded = getInts(buffer, orderNr), precedence = getInts(buffer, orderNr);
+		Map<Task, Task> order = new HashMap<>();
+		for (k = 0; k < orderNr; k++)
+			order.put(tasks[preceded[k]], tasks[precedence[k]]);
+
+		return Problem.getInstance(type, tasks, order, agents, seed);
+	}
+
+	private static void putInts(ByteBuffer buffer, int[] a) {
+		buffer.asIntBuffer().put(a);
+		buffer.position(buffer.position() + a.length * Integer.BYTES);
+	}
+
+	private static void putFloats(ByteBuffer buffer, float[] a) {
+		buffer.asFloatBuffer().put(a);
+		buffer.position(buffer.position() + a.length * Float.BYTES);
+	}
+
+	private static int[] getInts(ByteBuffer buffer, int length) {
+		int[] a = new int[length];
+		buffer.asIntBuffer().get(a);
+		buffer.position(buffer.position() + length * Integer.BYTES);
+		return a;
+	}
+
+	private static float[] getFloats(ByteBuffer buffer, int length) {
+		float[] a = new float[length];
+		buffer.asFloatBuffer().get(a);
+		buffer.position(buffer.position() + length * Float.BYTES);
+		return a;
+	}
+
+}
@@ -0,0 +1,162 @@
+package toolkit;
+
+import com.javadocmd.simplelatlng.LatLng;
+import locations.Location;
+import locations.LocationLatLng;
+import locations.LocationPoint;
+import model.*;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import problems.Problem;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * MARSC instances in the JSON format exported by the benchmark (e.g.,
+ * <code>marsc_1_00_0.json</code>), with one array per task and agent attribute.
+ *
+ * Locations are objects with either latitude and longitude (<code>lat</code>,
+ * <code>lon</code>), or Euclidean coordinates (<code>x</code>, <code>y</code>).
+ * The problem class and seed are optional, and default to a superadditive
+ * problem with seed 0.
+ *
+ * @author lcpz
+ */
+public class InstanceJson {
+
+	public static JSONObject toJson(MARSC problem) {
+		JSONObject j = new JSONObject();
+
+		Task[] tasks = problem.getTasks();
+		JSONArray profit = new JSONArray(tasks.length);
+		JSONArray workload = new JSONArray(tasks.length);
+		JSONArray possibleNodeLocations = new JSONArray(tasks.length);
+		JSONArray earliestTime = new JSONArray(tasks.length);
+		JSONArray softLatestTime = new JSONArray(tasks.length);
+		JSONArray hardLatestTime = new JSONArray(tasks.length);
+		for (Task v : tasks) {
+			profit.put(v.demand.profit);
+			workload.put(v.demand.workload);
+			JSONArray possibleLocations = new JSONArray(v.demand.possibleLocations.length);
+			for (Location l : v.demand.possibleLocations)
+				possibleLocations.put(toJson(l));
+			possibleNodeLocations.put(possibleLocations);
+			earliestTime.put(v.demand.timeWindow.earliestTime);
+			softLatestTime.put(v.demand.timeWindow.softLatestTime);
+			hardLatestTime.put(v.demand.timeWindow.hardLatestTime);
+		}
+		j.put("profit", profit);
+
+		JSONArray order = new JSONArray();
+		if (problem.getTaskOrdering() != null)
+			for (Map.Entry<Task, Task> entry : problem.getTaskOrdering().entrySet()) {
+				JSONObject p = new JSONObject();
+				p.put("preceded", entry.getKey().id);
+				p.put("precedence", entry.getValue().id);
+				order.put(p);
+			}
+		j.put("order", order);
+
+		j.put("workload", workload);
+
+		j.put("possible_node_locations", possibleNodeLocations);
+
+		j.put("earliest_time", earliestTime);
+		j.put("soft_latest_time", softLatestTime);
+		j.put("hard_latest_time", hardLatestTime);
+
+		Agent[] agents = problem.getAgents();
+		JSONArray agentInitialLocation = new JSONArray(agents.length);
+		JSONArray agentSpeed = new JSONArray(agents.length);
+
+		for (Agent a : agents) {
+			agentInitialLocation.put(toJson(a.initialLocation));
+			agentSpeed.put(a.speed);
+		}
+
+		j.put("agent_initial_location", agentInitialLocation);
+		j.put("agent_speed", agentSpeed);
+		j.put("u", 0); // Superadditive coalition values
+
+		j.put("type", Problem.getType(problem));
+		j.put("seed", problem.getSeed());
+
+		return j;
+	}
+
+	private static JSONObject toJson(Location l) {
+		JSONObject j = new JSONObject();
+
+		if (l instanceof LocationLatLng) {
+			LatLng latLng = ((LocationLatLng) l).location;
+			j.put("lat", latLng.getLatitude());
+			j.put("lon", latLng.getLongitude());
+		} else if (l instanceof LocationPoint) {
+			j.put("x", ((LocationPoint) l).location.x);
+			j.put("y", ((LocationPoint) l).location.y);
+		} else
+			try {
+				throw new Exception(String.format("%s locations cannot be exported", l.getClass().getSimpleName()));
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+
+		return j;
+	}
+
+	private static Location toLocation(JSONObject j) {
+		if (j.has("lat"))
+			return new LocationLatLng(j.getDouble("lat"), j.getDouble("lon"));
+		return new LocationPoint(j.getInt("x"), j.getInt("y"));
+	}
+
+	public static MARSC fromJson(JSONObject j) {
+		JSONArray workload = j.getJSONArray("workload");
+		JSONArray profit = j.getJSONArray("profit");
+		JSONArray possibleNodeLocations = j.getJSONArray("possible_node_locations");
+		JSONArray earliestTime = j.getJSONArray("earliest_time");
+		JSONArray softLatestTime = j.getJSONArray("soft_latest_time");
+		JSONArray hardLatestTime = j.getJSONArray("hard_latest_time");
+
+		Task[] tasks = new Task[workload.length()];
+		for (int i = 0; i < tasks.length; i++) {
+			JSONArray l = possibleNodeLocations.getJSONArray(i);
+			Location[] possibleLocations = new Location[l.length()];
+			for (int k = 0; k < possibleLocations.length; k++)
+				possibleLocations[k] = toLocation(l.getJSONObject(k));
+
+			TimeWindow timeWindow = new TimeWindow(earliestTime.getInt(i), softLatestTime.getInt(i), hardLatestTime.getInt(i));
+			tasks[i] = new Task(i, new Demand(possibleLocations, workload.getFloat(i), profit.getFloat(i), timeWindow));
+		}
+
+		Map<Task, Task> order = new HashMap<>();
+		JSONArray o = j.getJSONArray("order");
+		for (int n = 0; n < o.length(); n++)
+			order.put(tasks[o.getJSONObject(n).getInt("preceded")], tasks[o.getJSONObject(n).getInt("precedence")]);
+
+		JSONArray agentInitialLocation = j.getJSONArray("agent_initial_location");
+		JSONArray agentSpeed = j.getJSONArray("agent_speed");
+
+		Agent[] agents = new Agent[agentSpeed.length()];
+		for (int i = 0; i < agents.length; i++)
+			agents[i] = new Agent(i, toLocation(agentInitialLocation.getJSONObject(i)), agentSpeed.getFloat(i));
+
+		return Problem.getInstance(j.optString("type", "SUPERADDITIVE"), tasks, order, agents, j.optLong("seed", 0));
+	}
+
+	public static void write(MARSC problem, Path path) throws IOException {
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+			out.println(toJson(problem));
+		}
+	}
+
+	public static MARSC read(Path path) throws IOException {
+		return fromJson(new JSONObject(Files.readString(path)));
+	}
+
+}
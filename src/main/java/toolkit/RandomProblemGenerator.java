@@ -3,13 +3,12 @@ package toolkit;
 import locations.Location;
 import locations.LocationPoint;
 import model.*;
-import org.apache.commons.math3.distribution.UniformIntegerDistribution;
-import org.apache.commons.math3.distribution.UniformRealDistribution;
 import problems.Problem;
 
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.SplittableRandom;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -22,17 +21,24 @@ public class RandomProblemGenerator implements Serializable {
 	private static final long serialVersionUID = 1L;
 
 	public static MARSC generate(String type, int agentNr, int taskNr, int taskLocNr, int worldDim) {
+		return generate(type, agentNr, taskNr, taskLocNr, worldDim, ThreadLocalRandom.current().nextLong());
+	}
+
+	/**
+	 * As {@link #generate(String, int, int, int, int)}, with all the random values
+	 * (including coalition values) drawn from <code>seed</code>. Instances of
+	 * different classes with the same seed only differ in their coalition values.
+	 */
+	public static MARSC generate(String type, int agentNr, int taskNr, int taskLocNr, int worldDim, long seed) {
 		int i, j;
-		ThreadLocalRandom rnd = ThreadLocalRandom.current();
+		SplittableRandom rnd = new SplittableRandom(seed);
 
 		Location[] locations = new Location[worldDim * worldDim];
 		for (i = 0; i < locations.length; i++)
-			locations[i] = new LocationPoint(ThreadLocalRandom.current().nextInt(worldDim),
-					ThreadLocalRandom.current().nextInt(worldDim));
+			locations[i] = new LocationPoint(rnd.nextInt(worldDim), rnd.nextInt(worldDim));
 
-		/* Taken from 2010 Ramchurn's CFSTP paper. */
-		UniformIntegerDistribution unifT = new UniformIntegerDistribution(5, 600);
-		UniformRealDistribution unifW = new UniformRealDistribution(10, 50);
+		/* Taken from 2010 Ramchurn's CFSTP paper: times in [5, 600], workloads in [10, 50). */
+		int minT = 5, maxT = 600;
 
 		Task[] tasks = new Task[taskNr];
 		Map<Task, Task> order = new HashMap<>();
@@ -41,14 +47,14 @@ public class RandomProblemGenerator implements Serializable {
 			for (j = 0; j < possibleLocations.length; j++)
 				possibleLocations[j] = locations[rnd.nextInt(locations.length)];
 
-			float workload = (float) Math.abs(unifW.sample());
+			float workload = (float) rnd.nextDouble(10, 50);
 
-			int softLatestTime = Math.abs(unifT.sample());
-			int hardLatestTime = rnd.nextInt(softLatestTime, unifT.getSupportUpperBound() + 1);
+			int softLatestTime = rnd.nextInt(minT, maxT + 1);
+			int hardLatestTime = rnd.nextInt(softLatestTime, maxT + 1);
 			int earliestTime = rnd.nextInt(softLatestTime);
 			TimeWindow timeWindow = new TimeWindow(earliestTime, softLatestTime, hardLatestTime);
 
-			float profit = ThreadLocalRandom.current().nextFloat() + 1f;
+			float profit = (float) rnd.nextDouble() + 1f;
 
 			Demand demand = new Demand(possibleLocations, workload, profit, timeWindow);
 
@@ -67,10 +73,9 @@ public class RandomProblemGenerator implements Serializable {
 		Agent[] agents = new Agent[agentNr];
 		for (i = 0; i < agentNr; i++)
 			// random location position
-			agents[i] = new Agent(i, locations[ThreadLocalRandom.current().nextInt(locations.length)],
-			    ThreadLocalRandom.current().nextFloat() + 1f);
+			agents[i] = new Agent(i, locations[rnd.nextInt(locations.length)], (float) rnd.nextDouble() + 1f);
 
-		return Problem.getInstance(type, tasks, order, agents);
+		return Problem.getInstance(type, tasks, order, agents, Problem.getValueSeed(type, seed));
 	}
 
 }
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.SplittableRandom;
 
 import com.google.common.collect.Sets;
 import com.google.common.graph.GraphBuilder;
@@ -153,4 +154,20 @@ public class Utils {
 
 		return arr;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * A value drawn uniformly from [<code>lower</code>, <code>upper</code>).
+	 */
+	public static double uniform(SplittableRandom rnd, double lower, double upper) {
+		return lower + (upper - lower) * rnd.nextDouble();
+	}
+
+	/**
+	 * A value drawn from the normal distribution with mean <code>mean</code> and
+	 * standard deviation <code>sd</code> (Box-Muller transform).
+	 */
+	public static double gaussian(SplittableRandom rnd, double mean, double sd) {
+		return mean + sd * Math.sqrt(-2 * Math.log(1 - rnd.nextDouble())) * Math.cos(2 * Math.PI * rnd.nextDouble());
+	}
+
+}
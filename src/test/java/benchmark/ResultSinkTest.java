@@ -0,0 +1,39 @@
+package benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark results written as CSV.
+ *
+ * @author lcpz
+ */
+class ResultSinkTest {
+
+	@Test
+	void test(@TempDir Path dir) throws IOException {
+		Path records = dir.resolve("records.csv"), aggregates = dir.resolve("aggregates.csv");
+
+		try (ResultSink sink = new ResultSink(records.toString(), aggregates.toString())) {
+			sink.writeRecord("SUPERADDITIVE", 1.5f, 0, "EDF", 1, new double[] { 10, 2, 100, 3, Double.NaN, Double.NaN, 1 });
+			sink.writeAggregate("SUPERADDITIVE", 1.5f, "EDF", "score", new double[] { 10, 9, 11 }, 1);
+		}
+
+		List<String> lines = Files.readAllLines(records);
+		assertEquals(2, lines.size());
+		assertEquals(5 + ResultSink.METRICS.length, lines.get(0).split(",").length);
+		assertEquals("SUPERADDITIVE,1.5,0,EDF,1,10.0,2.0,100.0,3.0,,,1.0", lines.get(1));
+
+		lines = Files.readAllLines(aggregates);
+		assertEquals(2, lines.size());
+		assertEquals("SUPERADDITIVE,1.5,EDF,score,10.0,9.0,11.0,1", lines.get(1));
+	}
+
+}
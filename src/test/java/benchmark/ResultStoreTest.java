@@ -0,0 +1,54 @@
+package benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Resuming from the completed cells of an interrupted session.
+ *
+ * @author lcpz
+ */
+class ResultStoreTest {
+
+	@Test
+	void test(@TempDir Path dir) throws IOException {
+		String path = dir.resolve("store.csv").toString();
+
+		try (ResultStore store = new ResultStore(path, null, 42)) {
+			assertEquals(42, store.getSeed());
+			assertNull(store.get("SUPERADDITIVE", 1.5f, 0, "EDF"));
+			store.put("SUPERADDITIVE", 1.5f, 0, "EDF", 7, new double[] { 1, 2, 3 });
+		}
+
+		// interrupted while writing a cell, with its last value cut after the decimal point
+		Files.write(dir.resolve("store.csv"), "SUPERADDITIVE,1.5,1,EDF,8,4,5,12.".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+		try (ResultStore store = new ResultStore(path, null, 0)) {
+			assertNull(store.get("SUPERADDITIVE", 1.5f, 1, "EDF"));
+		}
+
+		try (ResultStore store = new ResultStore(path, null, 0)) { // the incomplete cell is not restored later either
+			assertEquals(42, store.getSeed()); // the stored one
+			assertEquals(1, store.size());
+			assertArrayEquals(new double[] { 1, 2, 3 }, store.get("SUPERADDITIVE", 1.5f, 0, "EDF"));
+			assertNull(store.get("SUPERADDITIVE", 1.5f, 1, "EDF"));
+			store.put("SUPERADDITIVE", 1.5f, 1, "EDF", 8, new double[] { 4, 5, 6 });
+		}
+
+		try (ResultStore store = new ResultStore(path, 42L, 0)) {
+			assertEquals(2, store.size());
+			assertArrayEquals(new double[] { 4, 5, 6 }, store.get("SUPERADDITIVE", 1.5f, 1, "EDF"));
+		}
+
+		assertThrows(IOException.class, () -> new ResultStore(path, 43L, 0)); // different session
+	}
+
+}
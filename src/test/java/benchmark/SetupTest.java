@@ -0,0 +1,88 @@
+package benchmark;
+
+import model.MARSC;
+import model.Task;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Only the valid records of the node dataset are kept, whatever the order of
+ * its columns, and quoted fields may contain the separator. Cached records
+ * are the records read.
+ *
+ * @author lcpz
+ */
+class SetupTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void test() throws Exception {
+		Path nodes = dir.resolve("nodes.csv"), stations = dir.resolve("stations.csv");
+		Files.writeString(nodes, String.join("\n",
+			"Notes,AttendanceTimeSeconds,DeployedFromStation_Name,DeployedFromStation_Code,Longitude,Latitude,Other",
+			"\"a, b\",120,Soho,A21,-0.1,51.5,x",
+			"c,NULL,Soho,A21,-0.1,51.5,x", // invalid attendance time
+			"d,-60,\"Unknown, station\",A23,-0.2,51.6,x",
+			"e,30,Missing,A21,-0.3,51.7",
+			"f,30"));
+		Files.writeString(stations, "Soho,51.513,-0.134\nA21,51.527,-0.133\n");
+
+		Setup setup = new Setup(nodes.toString(), stations.toString());
+		assertEquals(3, setup.recordNr);
+		assertArrayEquals(new double[] { 51.5, 51.6, 51.7 }, setup.latitudes);
+		assertArrayEquals(new double[] { -0.1, -0.2, -0.3 }, setup.longitudes);
+		assertArrayEquals(new int[] { 120, 60, 30 }, setup.attendanceTimes);
+		assertArrayEquals(new int[] { 0, -1, 1 }, setup.stations); // by name, none, by code
+
+		MARSC problem = setup.generate("UC_NDCS", 2, 2, 1, 7);
+		assertEquals(4, problem.getTasks().length);
+		assertEquals(0, problem.getTasks()[0].demand.timeWindow.earliestTime); // record 1 has no station
+		assertEquals(60, problem.getTasks()[0].demand.timeWindow.hardLatestTime);
+
+		/* Replicates of every class start from the same record. */
+		MARSC other = setup.generate("SUPERADDITIVE", 2, 2, 1, 8);
+		for (int i = 0; i < problem.getTasks().length; i++)
+			assertEquals(problem.getTasks()[i].demand.possibleLocations[0], other.getTasks()[i].demand.possibleLocations[0]);
+
+		/* With the same seed, classes only differ in their coalition values. */
+		MARSC same = setup.generate("SUPERADDITIVE", 2, 2, 1, 7);
+		for (int i = 0; i < problem.getTasks().length; i++) {
+			assertEquals(problem.getTasks()[i].demand.timeWindow.softLatestTime, same.getTasks()[i].demand.timeWindow.softLatestTime);
+			assertEquals(problem.getTasks()[i].demand.workload, same.getTasks()[i].demand.workload);
+		}
+		assertEquals(problem.getTaskOrdering() == null, same.getTaskOrdering() == null);
+		if (problem.getTaskOrdering() != null)
+			for (Task v : problem.getTaskOrdering().keySet())
+				assertEquals(problem.getTaskOrdering().get(v).id, same.getTaskOrdering().get(same.getTasks()[v.id]).id);
+		for (int i = 0; i < problem.getAgents().length; i++)
+			assertEquals(problem.getAgents()[i].initialLocation, same.getAgents()[i].initialLocation);
+		assertNotEquals(problem.getSeed(), same.getSeed());
+		assertEquals(problem.getTasks()[1].demand.possibleLocations[0], setup.generateAt(2, "UC_NDCS", 2, 2, 7).getTasks()[0].demand.possibleLocations[0]);
+
+		/* The records cached are the records read, until the datasets change. */
+		Path cacheDir = dir.resolve("cache");
+		new Setup(nodes.toString(), stations.toString(), cacheDir.toString());
+		assertEquals(1, Files.list(cacheDir).count());
+
+		Setup cached = new Setup(nodes.toString(), stations.toString(), cacheDir.toString());
+		assertEquals(setup.recordNr, cached.recordNr);
+		assertArrayEquals(setup.latitudes, cached.latitudes);
+		assertArrayEquals(setup.longitudes, cached.longitudes);
+		assertArrayEquals(setup.attendanceTimes, cached.attendanceTimes);
+		assertArrayEquals(setup.stations, cached.stations);
+		assertArrayEquals(setup.stationLatitudes, cached.stationLatitudes);
+		assertArrayEquals(setup.stationLongitudes, cached.stationLongitudes);
+
+		Files.writeString(stations, "Soho,51.513,-0.134\n");
+		assertArrayEquals(new int[] { 0, -1, -1 }, new Setup(nodes.toString(), stations.toString(), cacheDir.toString()).stations);
+		assertEquals(2, Files.list(cacheDir).count());
+	}
+
+}
@@ -0,0 +1,70 @@
+package bip;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Linear relaxations solved with rows added and bounds changed between calls.
+ *
+ * @author lcpz
+ */
+class DualSimplexTest {
+
+	/* min -x0 - x1, with x0 + 2 x1 <= 4, 3 x0 + x1 <= 6, x0 + x1 >= 1, x0, x1 = 0..10 integer. */
+	static Model getModel() {
+		Model model = new Model();
+		int x = model.addVariables(2, 0, 10, Model.Type.INTEGER);
+		model.setObjectiveCoefficient(x, -1);
+		model.setObjectiveCoefficient(x + 1, -1);
+		model.addLe(new Model.Row().add(x, 1).add(x + 1, 2), 4);
+		model.addLe(new Model.Row().add(x, 3).add(x + 1, 1), 6);
+		model.addGe(new Model.Row().add(x, 1).add(x + 1, 1), 1);
+		return model;
+	}
+
+	@Test
+	void testRows() {
+		DualSimplex lp = new DualSimplex(getModel());
+		assertEquals(DualSimplex.Status.OPTIMAL, lp.solve());
+		assertEquals(-20, lp.getObjectiveValue(), 1e-9); // no rows, all variables at their upper bound
+
+		lp.addRow(0);
+		assertEquals(DualSimplex.Status.OPTIMAL, lp.solve());
+		assertEquals(-4, lp.getObjectiveValue(), 1e-9);
+
+		lp.addRow(1);
+		lp.addRow(2);
+		assertEquals(DualSimplex.Status.OPTIMAL, lp.solve());
+		assertEquals(-2.8, lp.getObjectiveValue(), 1e-9);
+		assertArrayEquals(new double[] { 1.6, 1.2 }, lp.getValues(), 1e-9);
+
+		assertEquals(1, lp.removeSlackRows()); // x0 + x1 >= 1 is not tight
+		assertEquals(2, lp.getRowsNr());
+		assertEquals(DualSimplex.Status.OPTIMAL, lp.solve());
+		assertEquals(-2.8, lp.getObjectiveValue(), 1e-9);
+	}
+
+	@Test
+	void testBounds() {
+		Model model = getModel();
+		DualSimplex lp = new DualSimplex(model);
+		for (int r = 0; r < model.getRowsNr(); r++)
+			lp.addRow(r);
+
+		lp.setBounds(0, 0, 1);
+		assertEquals(DualSimplex.Status.OPTIMAL, lp.solve());
+		assertArrayEquals(new double[] { 1, 1.5 }, lp.getValues(), 1e-9);
+
+		lp.setBounds(0, 0, 0);
+		lp.setBounds(1, 0, 0);
+		assertEquals(DualSimplex.Status.INFEASIBLE, lp.solve()); // x0 + x1 >= 1
+
+		lp.setBounds(0, 2, 10);
+		lp.setBounds(1, 0, 10);
+		assertEquals(DualSimplex.Status.OPTIMAL, lp.solve());
+		assertArrayEquals(new double[] { 2, 0 }, lp.getValues(), 1e-9);
+	}
+
+}
@@ -0,0 +1,86 @@
+package bip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import model.MARSC;
+import solvers.BIPSolver;
+import toolkit.RandomProblemGenerator;
+
+/**
+ * Writing BIPs in LP and MPS format, without any solver.
+ *
+ * @author lcpz
+ */
+class ModelWriterTest {
+
+	/* min x0 + 2 x1 - 3 x2, with x0 + x1 <= 1, x1 + 2 x2 >= 1, x2 = 0..4 integer, x1 fixed to 0. */
+	static Model getModel() {
+		Model model = new Model();
+		int x = model.addBinaryVariables(2);
+		int y = model.addVariables(1, 0, 4, Model.Type.INTEGER);
+		model.setObjectiveCoefficient(x, 1);
+		model.setObjectiveCoefficient(x + 1, 2);
+		model.setObjectiveCoefficient(y, -3);
+		model.setUpperBound(x + 1, 0);
+		model.addLe(new Model.Row().add(x, 1).add(x + 1, 1), 1);
+		model.addGe(new Model.Row().add(x + 1, 1).add(y, 2), 1);
+		return model;
+	}
+
+	@Test
+	void testLP() throws IOException {
+		StringWriter writer = new StringWriter();
+		ModelWriter.writeLP(getModel(), writer);
+
+		String[] lines = writer.toString().split("\n");
+		assertEquals("Minimize", lines[1]);
+		assertEquals(" obj: + 1 x0 + 2 x1 - 3 x2", lines[2]);
+		assertEquals(" c0: + 1 x0 + 1 x1 <= 1", lines[4]);
+		assertEquals(" c1: + 1 x1 + 2 x2 >= 1", lines[5]);
+		assertTrue(writer.toString().contains("Bounds\n x1 = 0\n 0 <= x2 <= 4\n"));
+		assertTrue(writer.toString().contains("Binaries\n x0 x1\nGenerals\n x2\nEnd\n"));
+	}
+
+	@Test
+	void testMPS() throws IOException {
+		StringWriter writer = new StringWriter();
+		ModelWriter.writeMPS(getModel(), writer);
+
+		String s = writer.toString();
+		assertTrue(s.contains("ROWS\n N obj\n L c0\n G c1\n"));
+		assertTrue(s.contains(" MARKER 'MARKER' 'INTORG'\n x0 obj 1\n x0 c0 1\n x1 obj 2\n x1 c0 1\n x1 c1 1\n"));
+		assertTrue(s.contains(" x2 c1 2\n MARKER 'MARKER' 'INTEND'\n"));
+		assertTrue(s.contains("RHS\n rhs c0 1\n rhs c1 1\n"));
+		assertTrue(s.contains("BOUNDS\n BV bnd x0\n FX bnd x1 0\n UP bnd x2 4\nENDATA\n"));
+	}
+
+	@Test
+	void testFormulation() throws IOException {
+		MARSC problem = RandomProblemGenerator.generate("SUPERADDITIVE", 3, 5, 2, 50);
+
+		BIPSolver solver = new BIPSolver(problem) {
+			@Override
+			public void solve() {
+			}
+
+			@Override
+			public float getAnytimeQualityIndex() {
+				return 0;
+			}
+		};
+
+		Model model = solver.createModel();
+		assertTrue(model.getVariablesNr() > 0);
+
+		StringWriter writer = new StringWriter();
+		ModelWriter.writeLP(model, writer);
+		assertEquals(model.getRowsNr(), writer.toString().split(" c\\d+:", -1).length - 1);
+	}
+
+}
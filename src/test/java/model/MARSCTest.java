@@ -0,0 +1,49 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+import solvers.BNT;
+import toolkit.RandomProblemGenerator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Clones share the parts of a problem that never change, and solving them
+ * neither changes the problem nor the other clones.
+ *
+ * @author lcpz
+ */
+class MARSCTest {
+
+	@Test
+	void test() {
+		for (String type : new String[] { "SUPERADDITIVE", "UC_AGENT_BASED", "UC_NDCS" }) {
+			MARSC problem = RandomProblemGenerator.generate(type, 4, 12, 2, 20, 1);
+			MARSC clone = problem.clone(), clone2 = problem.clone();
+
+			assertSame(problem.getClass(), clone.getClass());
+			assertEquals(problem.getSeed(), clone.getSeed());
+			for (int i = 0; i < problem.getTasks().length; i++) {
+				assertNotSame(problem.getTasks()[i], clone.getTasks()[i]);
+				assertSame(problem.getTasks()[i].demand, clone.getTasks()[i].demand);
+			}
+			for (int i = 0; i < problem.getAgents().length; i++)
+				assertNotSame(problem.getAgents()[i], clone.getAgents()[i]);
+			if (problem.getTaskOrdering() != null)
+				for (Task v : clone.getTaskOrdering().keySet())
+					assertSame(clone.getTasks()[v.id], v);
+
+			BNT bnt = new BNT(clone);
+			bnt.solve();
+			for (Task v : problem.getTasks())
+				assertEquals(Task.Status.UNCOMPLETED, v.status);
+			for (Agent a : problem.getAgents())
+				assertSame(a.initialLocation, a.location);
+
+			BNT bnt2 = new BNT(clone2);
+			bnt2.solve();
+			// up to the order in which scores are summed, which depends on identity hash codes
+			assertEquals(bnt.getSolution().getScore(), bnt2.getSolution().getScore(), 1e-2f);
+		}
+	}
+
+}
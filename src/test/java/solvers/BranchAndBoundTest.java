@@ -0,0 +1,211 @@
+package solvers;
+
+import locations.Location;
+import locations.LocationPoint;
+import model.*;
+import org.junit.jupiter.api.Test;
+import problems.Problem;
+import toolkit.RandomProblemGenerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Solving the BIP of a MARSC instance without CPLEX.
+ *
+ * @author lcpz
+ */
+class BranchAndBoundTest {
+
+	/* Optimal value of the BIP of getProblem (the weighted sum of the working times), and score of its solutions. */
+	static final double OPTIMUM = 14044;
+	static final float SCORE = 72;
+
+	/* The instance of InstanceTest, without ordering constraints. */
+	static MARSC getProblem() {
+		Task[] tasks = new Task[3];
+		tasks[0] = new Task(0, new Demand(new Location[] { new LocationPoint(44, 8) }, (float) 45.23, 1f, new TimeWindow(29, 32, 160)));
+		tasks[1] = new Task(1, new Demand(new Location[] { new LocationPoint(14, 33) }, (float) 47.8, 1f, new TimeWindow(225, 461, 482)));
+		tasks[2] = new Task(2, new Demand(new Location[] { new LocationPoint(42, 24) }, (float) 42.42, 1f, new TimeWindow(309, 463, 464)));
+
+		Agent[] agents = new Agent[2];
+		agents[0] = new Agent(0, new LocationPoint(42, 29), 1);
+		agents[1] = new Agent(1, new LocationPoint(6, 34), 1);
+
+		return Problem.getInstance("SUPERADDITIVE", tasks, null, agents);
+	}
+
+	/**
+	 * Coalition allocations are within the time windows and after the
+	 * precedences, each task is worked on at one location until its workload is
+	 * done, and agents work on one task at a time, with the time to travel
+	 * between tasks. If an agent reaches a location at time t, it starts to work
+	 * at time t+1.
+	 */
+	static void assertFeasible(MARSC problem, Solution solution) {
+		Map<Task, Task> order = problem.getTaskOrdering();
+		Map<Integer, Location> locations = new HashMap<>();
+		Map<Integer, Float> workDone = new HashMap<>();
+		Map<Integer, CoalitionAllocation> lastAllocations = new HashMap<>(); // by agent
+
+		CoalitionAllocation[] cas = solution.coalitionAllocations.clone();
+		Arrays.sort(cas, Comparator.comparingInt(ca -> ca.startTime));
+
+		for (CoalitionAllocation ca : cas) {
+			TimeWindow tw = ca.task.demand.timeWindow;
+			assertTrue(tw.earliestTime <= ca.startTime && ca.endTime < tw.hardLatestTime, ca.toString());
+
+			Task precedence = order != null ? order.get(problem.getTasks()[ca.task.id]) : null;
+			if (precedence != null)
+				assertTrue(ca.startTime > precedence.demand.timeWindow.hardLatestTime, ca.toString());
+
+			assertEquals(locations.computeIfAbsent(ca.task.id, id -> ca.location), ca.location, ca.toString());
+			workDone.merge(ca.task.id, ca.value * (ca.endTime - ca.startTime + 1), Float::sum);
+
+			for (Agent a : ca.coalition) {
+				CoalitionAllocation last = lastAllocations.put(a.id, ca);
+				int readyTime;
+				if (last == null)
+					readyTime = a.getTravelTime(a.initialLocation, ca.location) + 1;
+				else if (last.task.id == ca.task.id)
+					readyTime = last.endTime + 1;
+				else
+					readyTime = last.endTime + 1 + a.getTravelTime(last.location, ca.location) + 1;
+				assertTrue(readyTime <= ca.startTime, String.format("%s cannot work on %s", a, ca));
+			}
+		}
+
+		for (Map.Entry<Integer, Float> e : workDone.entrySet())
+			assertTrue(e.getValue() >= problem.getTasks()[e.getKey()].demand.workload - 1e-3, "workload of T" + e.getKey());
+	}
+
+	@Test
+	void test() {
+		MARSC problem = getProblem();
+		assertNotNull(problem);
+
+		BranchAndBound coalition = new BranchAndBound(problem.clone(), BIPSolver.Formulation.COALITION, 1);
+		coalition.solve();
+		assertNotNull(coalition.solution);
+		assertFeasible(problem, coalition.solution);
+		assertTrue(coalition.getStats().startsWith("Solution status: optimal"));
+
+		BranchAndBound agent = new BranchAndBound(problem.clone(), BIPSolver.Formulation.AGENT, 1);
+		agent.solve();
+		assertNotNull(agent.solution);
+		assertFeasible(problem, agent.solution);
+		assertTrue(agent.getStats().startsWith("Solution status: optimal"));
+
+		// both formulations have the optimal value (possibly with different solutions)
+		assertEquals(OPTIMUM, coalition.getObjectiveValue(), 1e-6);
+		assertEquals(OPTIMUM, agent.getObjectiveValue(), 1e-6);
+		assertEquals(SCORE, coalition.solution.getScore(true));
+		assertEquals(SCORE, agent.solution.getScore(true));
+	}
+
+	@Test
+	void testLimits() {
+		MARSC problem = getProblem();
+		assertNotNull(problem);
+
+		BranchAndBound optimal = new BranchAndBound(problem.clone(), BIPSolver.Formulation.COALITION, 1);
+		optimal.solve();
+		assertNotNull(optimal.solution);
+
+		/* Stopped before solving the root node, with the optimal solution as incumbent. */
+		BranchAndBound bb = new BranchAndBound(problem.clone(), BIPSolver.Formulation.COALITION, 1, optimal.solution);
+		bb.nodeLimit = 0;
+		bb.solve();
+		assertNotNull(bb.solution);
+		assertFeasible(problem, bb.solution);
+		assertTrue(bb.getStats().startsWith("Solution status: feasible"));
+		assertEquals(OPTIMUM, bb.getObjectiveValue(), 1e-6);
+
+		/* Finished within the time limit. */
+		BranchAndBound limited = new BranchAndBound(problem.clone(), BIPSolver.Formulation.COALITION, 1, optimal.solution, 600000);
+		limited.solve();
+		assertNotNull(limited.solution);
+		assertTrue(limited.getStats().startsWith("Solution status: optimal"));
+		assertEquals(OPTIMUM, limited.getObjectiveValue(), 1e-6);
+	}
+
+	@Test
+	void testOrdering() {
+		MARSC problem = RandomProblemGenerator.generate("SUPERADDITIVE", 2, 3, 1, 10, 0);
+		Task task = problem.getTasks()[2], precedence = problem.getTaskOrdering().get(task);
+		assertSame(problem.getTasks()[1], precedence);
+		assertTrue(task.demand.timeWindow.earliestTime <= precedence.demand.timeWindow.hardLatestTime); // the ordering binds
+
+		BranchAndBound coalition = new BranchAndBound(problem.clone(), BIPSolver.Formulation.COALITION, 1);
+		coalition.solve();
+		assertNotNull(coalition.solution);
+		assertFeasible(problem, coalition.solution);
+
+		BranchAndBound agent = new BranchAndBound(problem.clone(), BIPSolver.Formulation.AGENT, 1);
+		agent.solve();
+		assertNotNull(agent.solution);
+		assertFeasible(problem, agent.solution);
+
+		assertEquals(agent.getObjectiveValue(), coalition.getObjectiveValue(), 1e-6);
+		for (CoalitionAllocation ca : coalition.solution.coalitionAllocations)
+			if (ca.task.id == task.id)
+				assertTrue(ca.startTime > precedence.demand.timeWindow.hardLatestTime);
+	}
+
+	@Test
+	void testTimeSlots() {
+		MARSC problem = getProblem();
+		assertNotNull(problem);
+
+		BranchAndBound coarse = new BranchAndBound(problem.clone(), BIPSolver.Formulation.COALITION, 1);
+		coarse.setTimeSlots(5, null);
+		coarse.solve();
+		assertNotNull(coarse.solution);
+		assertFeasible(problem, coarse.solution);
+		assertTrue(coarse.getObjectiveValue() >= OPTIMUM - 1e-6);
+
+		/* Refined only around the coalition allocations of T0: the other tasks keep the coarse time slots. */
+		List<int[]> records = new ArrayList<>();
+		for (int[] r : coarse.toRecords(coarse.solution))
+			if (r[0] == 0)
+				records.add(r);
+
+		BranchAndBound refined = new BranchAndBound(problem.clone(), BIPSolver.Formulation.COALITION, 1);
+		refined.setTimeSlots(5, records);
+		for (int length : refined.slotLengths[0])
+			assertEquals(1, length);
+		for (int h = 1; h < problem.getTasks().length; h++)
+			assertEquals(5, refined.slotLengths[h][0]);
+
+		refined.solve();
+		assertNotNull(refined.solution);
+		assertFeasible(problem, refined.solution);
+		assertTrue(refined.getObjectiveValue() <= coarse.getObjectiveValue() + 1e-6);
+		assertTrue(refined.getObjectiveValue() >= OPTIMUM - 1e-6);
+	}
+
+	@Test
+	void testThreads() {
+		MARSC problem = getProblem();
+		assertNotNull(problem);
+
+		BranchAndBound single = new BranchAndBound(problem.clone(), BIPSolver.Formulation.COALITION, 1);
+		single.solve();
+		assertNotNull(single.solution);
+		assertFeasible(problem, single.solution);
+
+		BranchAndBound multi = new BranchAndBound(problem.clone(), BIPSolver.Formulation.COALITION, 4);
+		multi.solve();
+		assertNotNull(multi.solution);
+		assertFeasible(problem, multi.solution);
+
+		assertEquals(single.getObjectiveValue(), multi.getObjectiveValue(), 1e-6);
+	}
+
+}
@@ -0,0 +1,178 @@
+package solvers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.RepeatedTest;
+
+import locations.Location;
+import model.CoalitionAllocation;
+import model.MARSC;
+import model.Solution;
+import model.Task;
+import toolkit.RandomProblemGenerator;
+
+/**
+ * Comparison of the event-driven and the time-stepped versions of CTS, of CTS
+ * with its original choice of the closest task, and of CTS with its portfolio
+ * version.
+ *
+ * @author lcpz
+ */
+class CTSTest {
+
+	static final int TEST_REPETITIONS = 20;
+
+	static final int AGENTS = 6;
+	static final int TASKS = 30;
+	static final int MAX_TASK_LOCATIONS = 2;
+	static final int WORLD_DIM = 50;
+
+	/* Coalition allocations as sorted strings, since coalitions are built from hash sets. */
+	static List<String> toSortedStrings(Solution solution) {
+		List<String> l = new ArrayList<>();
+
+		for (CoalitionAllocation ca : solution.coalitionAllocations) {
+			int[] ids = new int[ca.coalition.length];
+			for (int i = 0; i < ids.length; i++)
+				ids[i] = ca.coalition[i].id;
+			Arrays.sort(ids);
+			l.add(String.format("%s %s %d-%d %s", ca.task, ca.location, ca.startTime, ca.endTime, Arrays.toString(ids)));
+		}
+
+		Collections.sort(l);
+
+		return l;
+	}
+
+	/* Time-stepped CTS, choosing the closest task as the original version, without travel-time tables. */
+	static class OriginalCTS extends CTS {
+
+		OriginalCTS(MARSC problem) {
+			super(problem, false);
+		}
+
+		@Override
+		protected void setPotentialAllocationsTo(int i) {
+			// 0: allocable, 1: allocated (but not completed)
+			int[] taskIdx = new int[] { -1, -1 };
+			int[] arrivalTimes = new int[] {
+				problem.maximumProblemCompletionTime + 1,
+				problem.maximumProblemCompletionTime + 1
+			};
+			int[] locations = new int[2];
+
+			int idx, t, gamma;
+			Task precedence;
+
+			for (int j = 0; j < tasks.length; j++) {
+				if (tasks[j] == null)
+					continue;
+
+				if (order != null) { // satisfy ordering constraints
+					precedence = order.get(tasks[j]);
+					if (precedence != null && precedence.status != Task.Status.COMPLETED)
+						continue;
+				}
+
+				if (tasks[j].status == Task.Status.UNCOMPLETED || tasks[j].status == Task.Status.ALLOCATED) {
+					idx = 0;
+					if (tasks[j].status == Task.Status.ALLOCATED)
+						idx = 1;
+
+					gamma = tasks[j].demand.timeWindow.hardLatestTime;
+
+					Location[] possibleLocations = tasks[j].demand.possibleLocations;
+					for (int l = 0; l < possibleLocations.length; l++) {
+						t = currentTime + agents[i].getTravelTimeTo(possibleLocations[l]);
+						if (taskIdx[idx] == -1 || (t < gamma && t < arrivalTimes[idx]
+							&& gamma < tasks[taskIdx[idx]].demand.timeWindow.hardLatestTime)
+							&& (singletonSolutions[taskIdx[idx]] == null || singletonSolutions[taskIdx[idx]].getLastWorkingTime() >= t)) {
+							taskIdx[idx] = j;
+							arrivalTimes[idx] = t;
+							locations[idx] = l;
+						}
+					}
+				}
+			}
+
+			if (taskIdx[0] > -1 || taskIdx[1] > -1) {
+				// prioritise not yet allocated tasks
+				idx = taskIdx[0] > -1 ? 0 : 1;
+
+				tasks[taskIdx[idx]].status = Task.Status.ALLOCABLE;
+				allocableAgents.get(taskIdx[idx]).get(locations[idx]).add(agents[i]);
+
+				agents[i].target = tasks[taskIdx[idx]];
+				agents[i].targetLocation = tasks[taskIdx[idx]].demand.possibleLocations[locations[idx]];
+				agents[i].arrivalTime = arrivalTimes[idx];
+			}
+		}
+
+	}
+
+	@RepeatedTest(TEST_REPETITIONS)
+	void testOriginal() {
+		MARSC problem = RandomProblemGenerator.generate("SUPERADDITIVE", AGENTS, TASKS, MAX_TASK_LOCATIONS, WORLD_DIM);
+
+		CTS cts = new CTS(problem.clone());
+		cts.solve();
+
+		CTS original = new OriginalCTS(problem.clone());
+		original.solve();
+
+		assertEquals(toSortedStrings(original.getSolution()), toSortedStrings(cts.getSolution()));
+	}
+
+	@RepeatedTest(TEST_REPETITIONS)
+	void test0() {
+		MARSC problem = RandomProblemGenerator.generate("SUPERADDITIVE", AGENTS, TASKS, MAX_TASK_LOCATIONS, WORLD_DIM);
+
+		CTS eventDriven = new CTS(problem.clone(), true);
+		eventDriven.solve();
+
+		CTS timeStepped = new CTS(problem.clone(), false);
+		timeStepped.solve();
+
+		assertEquals(toSortedStrings(timeStepped.getSolution()), toSortedStrings(eventDriven.getSolution()));
+	}
+
+	@RepeatedTest(TEST_REPETITIONS)
+	void test1() {
+		MARSC problem = RandomProblemGenerator.generate("SUPERADDITIVE", AGENTS, TASKS, MAX_TASK_LOCATIONS, WORLD_DIM);
+
+		CTS cts = new CTS(problem.clone());
+		cts.solve();
+
+		CTSPortfolio input = new CTSPortfolio(problem.clone(), 1, CTSPortfolio.Ordering.INPUT);
+		input.solve();
+
+		assertEquals(toSortedStrings(cts.getSolution()), toSortedStrings(input.getSolution()));
+
+		CTSPortfolio portfolio = new CTSPortfolio(problem.clone());
+		portfolio.solve();
+
+		assertTrue(portfolio.getSolution().getScore(false) >= cts.getSolution().getScore(false));
+		for (CoalitionAllocation ca : portfolio.getSolution().coalitionAllocations)
+			assertTrue(Arrays.asList(portfolio.getProblem().getTasks()).contains(ca.task));
+	}
+
+	@RepeatedTest(TEST_REPETITIONS)
+	void testRandomOrdering() {
+		MARSC problem = RandomProblemGenerator.generate("SUPERADDITIVE", AGENTS, TASKS, MAX_TASK_LOCATIONS, WORLD_DIM);
+
+		// the random ordering only depends on the seed of the problem
+		CTSPortfolio random = new CTSPortfolio(problem.clone(), 1, CTSPortfolio.Ordering.RANDOM);
+		random.solve();
+		CTSPortfolio random2 = new CTSPortfolio(problem.clone(), 1, CTSPortfolio.Ordering.RANDOM);
+		random2.solve();
+
+		assertEquals(toSortedStrings(random.getSolution()), toSortedStrings(random2.getSolution()));
+	}
+
+}
@@ -0,0 +1,101 @@
+package toolkit;
+
+import model.MARSC;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Instances read from an archive, or from their JSON export, are the instances
+ * written, even if the archive was interrupted while storing one.
+ *
+ * @author lcpz
+ */
+class InstanceArchiveTest {
+
+	@TempDir
+	Path dir;
+
+	static void assertSameInstance(MARSC p, MARSC q) {
+		RandomProblemGeneratorTest.assertSameInstance(p, q);
+		assertEquals(p.getClass(), q.getClass());
+		assertEquals(p.getSeed(), q.getSeed());
+		for (int i = 0; i < p.getTasks().length; i++) {
+			assertEquals(p.getTasks()[i].demand.profit, q.getTasks()[i].demand.profit);
+			assertArrayEquals(p.getTasks()[i].demand.possibleLocations, q.getTasks()[i].demand.possibleLocations);
+		}
+	}
+
+	@Test
+	void test() throws Exception {
+		Path path = dir.resolve("instances.bin");
+		String[] types = RandomProblemGeneratorTest.TYPES;
+
+		try (InstanceArchive archive = new InstanceArchive(path)) {
+			for (int i = 0; i < types.length; i++)
+				archive.put(types[i], RandomProblemGenerator.generate(types[i], 4, 10, 2, 20, i));
+		}
+
+		try (InstanceArchive archive = new InstanceArchive(path)) {
+			assertEquals(types.length, archive.keys().size());
+			assertNull(archive.get("SUPERADDITIVE"));
+
+			for (int i = 0; i < types.length; i++)
+				assertSameInstance(RandomProblemGenerator.generate(types[i], 4, 10, 2, 20, i), archive.get(types[i]));
+
+			/* Replaced instances are read from their new position. */
+			archive.put(types[0], RandomProblemGenerator.generate(types[0], 4, 10, 2, 20, 42));
+		}
+
+		try (InstanceArchive archive = new InstanceArchive(path)) {
+			assertEquals(types.length, archive.keys().size());
+			assertSameInstance(RandomProblemGenerator.generate(types[0], 4, 10, 2, 20, 42), archive.get(types[0]));
+		}
+	}
+
+	@Test
+	void testInterrupted() throws Exception {
+		Path path = dir.resolve("instances.bin");
+		String[] types = RandomProblemGeneratorTest.TYPES;
+
+		InstanceArchive interrupted = new InstanceArchive(path); // never closed, as if the session was killed
+		interrupted.put(types[0], RandomProblemGenerator.generate(types[0], 4, 10, 2, 20, 0));
+		interrupted.put(types[1], RandomProblemGenerator.generate(types[1], 4, 10, 2, 20, 1));
+
+		/* Killed while storing a third instance: part of it, and part of its entry, were written. */
+		Files.write(path, new byte[100], StandardOpenOption.APPEND);
+		Files.write(InstanceArchive.getIndexPath(path), new byte[] { 0, 0, 0, 3, 'k' }, StandardOpenOption.APPEND);
+
+		try (InstanceArchive archive = new InstanceArchive(path)) {
+			assertEquals(2, archive.keys().size());
+			for (int i = 0; i < 2; i++)
+				assertSameInstance(RandomProblemGenerator.generate(types[i], 4, 10, 2, 20, i), archive.get(types[i]));
+
+			archive.put(types[2], RandomProblemGenerator.generate(types[2], 4, 10, 2, 20, 2));
+		}
+
+		try (InstanceArchive archive = new InstanceArchive(path)) {
+			assertEquals(3, archive.keys().size());
+			for (int i = 0; i < 3; i++)
+				assertSameInstance(RandomProblemGenerator.generate(types[i], 4, 10, 2, 20, i), archive.get(types[i]));
+		}
+
+		interrupted.close();
+	}
+
+	@Test
+	void testJson() throws Exception {
+		for (int i = 0; i < RandomProblemGeneratorTest.TYPES.length; i++) {
+			MARSC problem = RandomProblemGenerator.generate(RandomProblemGeneratorTest.TYPES[i], 4, 10, 2, 20, i);
+			Path path = dir.resolve(i + ".json");
+			InstanceJson.write(problem, path);
+			assertSameInstance(problem, InstanceJson.read(path));
+		}
+	}
+
+}
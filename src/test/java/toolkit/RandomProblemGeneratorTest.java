@@ -0,0 +1,50 @@
+package toolkit;
+
+import model.Agent;
+import model.MARSC;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Instances generated from the same seed, sequentially or in parallel, are the
+ * same.
+ *
+ * @author lcpz
+ */
+class RandomProblemGeneratorTest {
+
+	static final String[] TYPES = { "LINEAR_PERTURBED", "MODIFIED_UNIFORM", "MODIFIED_NORMAL", "UC_AGENT_BASED", "UC_NDCS" };
+
+	static void assertSameInstance(MARSC p, MARSC q) {
+		assertEquals(p.getTasks().length, q.getTasks().length);
+		assertEquals(p.getAgents().length, q.getAgents().length);
+
+		for (int i = 0; i < p.getAgents().length; i++)
+			assertEquals(p.getAgents()[i].location, q.getAgents()[i].location);
+
+		Agent[] coalition = p.getAgents(), coalition2 = q.getAgents();
+		for (int i = 0; i < p.getTasks().length; i++) {
+			Task v = p.getTasks()[i], v2 = q.getTasks()[i];
+			assertEquals(v.demand.timeWindow.earliestTime, v2.demand.timeWindow.earliestTime);
+			assertEquals(v.demand.timeWindow.hardLatestTime, v2.demand.timeWindow.hardLatestTime);
+			assertEquals(v.demand.workload, v2.demand.workload);
+			assertEquals(p.getValue(v, v.demand.possibleLocations[0], coalition), q.getValue(v2, v2.demand.possibleLocations[0], coalition2));
+		}
+	}
+
+	@Test
+	void test() {
+		for (String type : TYPES) {
+			MARSC[] parallel = new MARSC[8];
+			IntStream.range(0, parallel.length).parallel().forEach(i -> parallel[i] = RandomProblemGenerator.generate(type, 4, 10, 2, 20, i));
+
+			for (int i = 0; i < parallel.length; i++)
+				assertSameInstance(parallel[i], RandomProblemGenerator.generate(type, 4, 10, 2, 20, i));
+		}
+	}
+
+}